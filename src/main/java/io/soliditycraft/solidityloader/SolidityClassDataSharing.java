@@ -0,0 +1,229 @@
+package io.soliditycraft.solidityloader;
+
+import io.soliditycraft.solidityloader.addons.SolidityAddonManager;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Produces class-data-sharing (CDS) files for the start scripts of the server.
+ * <p>During a training run every class loaded while booting and during the configured warm-up window is
+ * recorded. Afterwards a class list ({@code solidity.classlist}) is written and, if the JVM was started with
+ * {@code -XX:+RecordDynamicDumpInfo}, a dynamic CDS archive ({@code solidity.jsa}) is dumped as well.</p>
+ * <p>Only the dynamic archive covers the classes of plugins and addons, which are loaded by their own class loaders.
+ * A static archive dumped from the class list contains the JDK and server classes of the class path only.</p>
+ * <p>Both files are stamped with a fingerprint of the Java version, the server version and the content of every
+ * addon JAR. If an addon JAR changes, the files are reported as stale and are regenerated by the next training run.</p>
+ */
+@Getter
+public class SolidityClassDataSharing {
+
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+
+    private final SolidityLoader loader;
+    private final SolidityLogger logger;
+    private final File folder;
+    private final File classList;
+    private final File archive;
+    private final File fingerprintFile;
+    private BukkitTask trainingTask;
+
+    public SolidityClassDataSharing(SolidityLoader loader, SolidityLogger logger) {
+        this.loader = loader;
+        this.logger = logger;
+        this.folder = new File(loader.getDataFolder(), "cds");
+        this.classList = new File(folder, "solidity.classlist");
+        this.archive = new File(folder, "solidity.jsa");
+        this.fingerprintFile = new File(folder, "fingerprint.txt");
+    }
+
+    /**
+     * Checks whether the CDS files are stale and starts a training run if it is enabled.
+     * Must be called after the addons have been loaded.
+     */
+    public void start() {
+        boolean training = loader.getConfig().getBoolean("cds.training", false);
+        if (!training) {
+            if ((classList.exists() || archive.exists()) && isStale()) {
+                logger.warn("The CDS files in " + folder.getPath() + " are stale as the addons or the server changed. Enable cds.training to regenerate them.");
+            }
+            return;
+        }
+
+        long warmup = loader.getConfig().getLong("cds.warmup_seconds", 60);
+        logger.info("CDS training run: recording loaded classes for " + warmup + " second(s) of warm-up...");
+        trainingTask = Bukkit.getScheduler().runTaskLater(loader, this::finishTraining, Math.max(1L, warmup * 20L));
+    }
+
+    /**
+     * Stops a running training run without writing any files.
+     */
+    public void stop() {
+        if (trainingTask != null) {
+            trainingTask.cancel();
+            trainingTask = null;
+        }
+    }
+
+    /**
+     * Ends the training run: writes the class list, dumps the dynamic archive if possible and stamps
+     * both with the current fingerprint.
+     */
+    public void finishTraining() {
+        trainingTask = null;
+        if (!folder.exists() && !folder.mkdirs()) {
+            getLogger().error("Unable to create the CDS folder " + folder.getPath());
+            return;
+        }
+
+        try {
+            Set<String> classes = getLoadedClasses();
+            writeAtomically(classList, String.join("\n", classes) + "\n");
+            logger.info("CDS training run: wrote " + classes.size() + " class(es) to " + classList.getPath());
+        } catch (Exception e) {
+            getLogger().error("Unable to write the CDS class list due to: \n" + e);
+            return;
+        }
+
+        boolean dumped = false;
+        if (loader.getConfig().getBoolean("cds.dynamic_archive", true)) {
+            dumped = dumpDynamicArchive();
+        }
+
+        try {
+            writeAtomically(fingerprintFile, fingerprint());
+        } catch (IOException e) {
+            getLogger().error("Unable to write the CDS fingerprint due to: \n" + e);
+        }
+
+        if (dumped) {
+            logger.info("CDS training run: start the server with -XX:SharedArchiveFile=" + archive.getPath());
+        } else {
+            // The static dump only archives classes of the boot and application class path, so it needs the same class path
+            logger.info("CDS training run: create an archive with java -Xshare:dump -XX:SharedClassListFile=" + classList.getPath()
+                    + " -XX:SharedArchiveFile=" + archive.getPath() + " -cp " + System.getProperty("java.class.path")
+                    + " and start the server with -XX:SharedArchiveFile=" + archive.getPath());
+            logger.info("CDS training run: such an archive only contains the JDK and server classes, start the training run with"
+                    + " -XX:+RecordDynamicDumpInfo to archive the classes of plugins and addons as well.");
+        }
+    }
+
+    /**
+     * Checks whether the CDS files were created for other addon JARs, another server or another Java version.
+     *
+     * @return Whether the CDS files are stale.
+     */
+    public boolean isStale() {
+        if (!fingerprintFile.exists()) return true;
+        try {
+            String stored = new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8);
+            return !stored.equals(fingerprint());
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Builds the fingerprint of the current environment: Java and server versions and the content hash of every addon JAR.
+     *
+     * @return The fingerprint.
+     * @throws IOException If an addon JAR can't be read.
+     */
+    public String fingerprint() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("java=").append(System.getProperty("java.vm.vendor")).append(' ').append(System.getProperty("java.vm.version")).append('\n');
+        builder.append("server=").append(Bukkit.getVersion()).append('\n');
+        builder.append("solidity=").append(loader.getDescription().getVersion()).append('\n');
+
+        File[] jarFiles = SolidityLoader.SOLIDITY_ADDON_FOLDER.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jarFiles != null) {
+            Arrays.sort(jarFiles, Comparator.comparing(File::getName));
+            SolidityAddonManager addonManager = loader.getAddonManager();
+            for (File jarFile : jarFiles) {
+                builder.append("addon=").append(jarFile.getName()).append(' ').append(addonManager.getContentHash(jarFile)).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Lists every class currently loaded by the JVM in the internal form used by class lists.
+     * Hidden classes (lambdas, proxies) are left out as they can't be archived.
+     *
+     * @return The sorted class names.
+     * @throws Exception If the class hierarchy can't be queried.
+     */
+    private Set<String> getLoadedClasses() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String hierarchy = (String) server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "vmClassHierarchy",
+                new Object[]{new String[0]}, new String[]{String[].class.getName()});
+
+        Set<String> classes = new TreeSet<>();
+        for (String line : hierarchy.split("\n")) {
+            // Lines look like "|  |--java.lang.String/null" or "|--com.example.Addon/0x0000000800c0b000",
+            // the class name is followed by its loader
+            int start = 0;
+            while (start < line.length() && (line.charAt(start) == '|' || line.charAt(start) == '-' || line.charAt(start) == ' ')) start++;
+            int space = line.indexOf(' ', start);
+            String entry = line.substring(start, space >= 0 ? space : line.length());
+            int end = entry.lastIndexOf('/');
+            if (end <= 0) continue;
+
+            String name = entry.substring(0, end);
+            // Hidden classes carry their address in the name, e.g. "Addon$$Lambda/0x0000000801001200"
+            if (name.contains("/0x")) continue;
+            if (name.contains("$$Lambda") || name.contains("$Proxy")) continue;
+            classes.add(name.replace('.', '/'));
+        }
+        return classes;
+    }
+
+    /**
+     * Dumps a dynamic CDS archive of the running JVM. This requires Java 17 or newer and the
+     * {@code -XX:+RecordDynamicDumpInfo} flag.
+     *
+     * @return Whether the archive was dumped.
+     */
+    private boolean dumpDynamicArchive() {
+        List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        if (!arguments.contains("-XX:+RecordDynamicDumpInfo")) {
+            logger.info("CDS training run: the JVM wasn't started with -XX:+RecordDynamicDumpInfo, skipping the dynamic archive.");
+            return false;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            List<String> command = new ArrayList<>();
+            command.add("dynamic_dump");
+            command.add(archive.getAbsolutePath());
+            server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "vmCds",
+                    new Object[]{command.toArray(new String[0])}, new String[]{String[].class.getName()});
+            logger.info("CDS training run: dumped the dynamic archive to " + archive.getPath());
+            return true;
+        } catch (Exception e) {
+            getLogger().error("Unable to dump the dynamic CDS archive due to: \n" + e);
+            return false;
+        }
+    }
+
+    private static void writeAtomically(File file, String content) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Files.write(tmp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -3,6 +3,10 @@ package io.soliditycraft.solidityloader;
 import io.soliditycraft.solidityloader.addons.SolidityAddonManager;
 import io.soliditycraft.solidityloader.api.Solidity;
 import io.soliditycraft.solidityloader.commands.SolidityCommandManager;
+import io.soliditycraft.solidityloader.database.SolidityDatabaseManager;
+import io.soliditycraft.solidityloader.database.SolidityPoolSettings;
+import io.soliditycraft.solidityloader.database.SolidityQueryMetrics;
+import io.soliditycraft.solidityloader.gui.SolidityGuiRouter;
 import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -19,6 +23,9 @@ public final class SolidityLoader extends JavaPlugin {
     private final SolidityLogger slogger = SolidityLogger.getLogger();
     private SolidityAddonManager addonManager;
     private SolidityCommandManager commandManager;
+    private SolidityDatabaseManager databaseManager;
+    private SolidityClassDataSharing classDataSharing;
+    private SolidityGuiRouter guiRouter;
 
     @Override
     public void onLoad() {
@@ -30,8 +37,11 @@ public final class SolidityLoader extends JavaPlugin {
         if (!SOLIDITY_ADDON_FOLDER.exists()) SOLIDITY_ADDON_FOLDER.mkdir();
 
         /* Class Initialization */
+        databaseManager = new SolidityDatabaseManager(SolidityPoolSettings.from(getConfig().getConfigurationSection("database.pool")));
+        SolidityQueryMetrics.getInstance().setSlowQueryThreshold(Math.max(0, getConfig().getLong("database.slow_query_threshold_ms", 250)));
         addonManager = new SolidityAddonManager(this);
         commandManager = new SolidityCommandManager(this);
+        classDataSharing = new SolidityClassDataSharing(this, slogger);
         slogger.line(64);
         Solidity.initialize(this);
     }
@@ -39,11 +49,16 @@ public final class SolidityLoader extends JavaPlugin {
     @Override
     public void onEnable() {
         slogger.line(64);
+        guiRouter = new SolidityGuiRouter(this);
         slogger.info("Loading Solidity Addons...");
         addonManager.automatic();
+        if (getConfig().getBoolean("addons.hot_deploy.enabled", false)) {
+            addonManager.startHotDeploy();
+        }
         slogger.info("Loading Solidity Base Command (/solidity)...");
         commandManager.loadDefaultCommands();
         commandManager.loadBaseCommand();
+        classDataSharing.start();
 
         /* Final log message */
         slogger.line(64);
@@ -57,7 +72,12 @@ public final class SolidityLoader extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        classDataSharing.stop();
+        addonManager.stopHotDeploy();
+        databaseManager.flushPlayerData();
+        if (guiRouter != null) guiRouter.close();
         addonManager.disableAllAddons();
+        databaseManager.close();
 
         /* Final log message */
         slogger.line(64);
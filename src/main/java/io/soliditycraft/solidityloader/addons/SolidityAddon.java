@@ -5,18 +5,35 @@ import io.soliditycraft.solidityloader.SolidityLogger;
 import io.soliditycraft.solidityloader.commands.SolidityCommand;
 import io.soliditycraft.solidityloader.commands.SolidityCommandManager;
 import io.soliditycraft.solidityloader.configuration.SolidityAddonConfiguration;
+import io.soliditycraft.solidityloader.database.SolidityDatabaseManager;
+import io.soliditycraft.solidityloader.database.SolidityMapDatabase;
 import io.soliditycraft.solidityloader.listener.SolidityAddonListener;
 import io.soliditycraft.solidityloader.listener.SolidityListenerManager;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
 
 @Getter
 public abstract class SolidityAddon {
@@ -26,6 +43,14 @@ public abstract class SolidityAddon {
     private File addonDataFolder;
     private SolidityLogger logger;
     private SolidityAddonConfiguration configuration;
+    /**
+     * Tasks scheduled through this addon, cancelled when the addon is unloaded.
+     */
+    private final Set<BukkitTask> tasks = ConcurrentHashMap.newKeySet();
+    /**
+     * Listeners registered through this addon, unregistered when the addon is unloaded.
+     */
+    private final Set<SolidityAddonListener> listeners = ConcurrentHashMap.newKeySet();
 
     synchronized void initialize(SolidityLoader loader, SolidityAddonData info, File addonDataFolder) {
         this.setLoader(loader);
@@ -56,6 +81,98 @@ public abstract class SolidityAddon {
 
     public void registerListener(@NotNull SolidityAddonListener listener) {
         SolidityListenerManager.register(listener, this);
+        listeners.add(listener);
+    }
+
+    /**
+     * Runs a task on the server thread on the next tick, the task is cancelled when the addon unloads.
+     *
+     * @param task The task to run.
+     * @return The scheduled task.
+     */
+    public BukkitTask runTask(@NotNull Runnable task) {
+        return track(getServer().getScheduler().runTask(getLoader(), task));
+    }
+
+    /**
+     * Runs a task asynchronously, the task is cancelled when the addon unloads.
+     *
+     * @param task The task to run.
+     * @return The scheduled task.
+     */
+    public BukkitTask runTaskAsynchronously(@NotNull Runnable task) {
+        return track(getServer().getScheduler().runTaskAsynchronously(getLoader(), task));
+    }
+
+    /**
+     * Runs a task on the server thread after a delay, the task is cancelled when the addon unloads.
+     *
+     * @param task  The task to run.
+     * @param delay The delay in ticks.
+     * @return The scheduled task.
+     */
+    public BukkitTask runTaskLater(@NotNull Runnable task, long delay) {
+        return track(getServer().getScheduler().runTaskLater(getLoader(), task, delay));
+    }
+
+    /**
+     * Runs a repeating task on the server thread, the task is cancelled when the addon unloads.
+     *
+     * @param task   The task to run.
+     * @param delay  The delay in ticks before the first run.
+     * @param period The period in ticks between runs.
+     * @return The scheduled task.
+     */
+    public BukkitTask runTaskTimer(@NotNull Runnable task, long delay, long period) {
+        return track(getServer().getScheduler().runTaskTimer(getLoader(), task, delay, period));
+    }
+
+    /**
+     * Runs a repeating task asynchronously, the task is cancelled when the addon unloads.
+     *
+     * @param task   The task to run.
+     * @param delay  The delay in ticks before the first run.
+     * @param period The period in ticks between runs.
+     * @return The scheduled task.
+     */
+    public BukkitTask runTaskTimerAsynchronously(@NotNull Runnable task, long delay, long period) {
+        return track(getServer().getScheduler().runTaskTimerAsynchronously(getLoader(), task, delay, period));
+    }
+
+    private BukkitTask track(BukkitTask task) {
+        tasks.removeIf(BukkitTask::isCancelled);
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Cancels every task and unregisters every listener registered through this addon.
+     */
+    synchronized void teardown() {
+        for (BukkitTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+
+        for (SolidityAddonListener listener : listeners) {
+            HandlerList.unregisterAll(listener);
+        }
+        listeners.clear();
+    }
+
+    public SolidityDatabaseManager getDatabaseManager() {
+        return getLoader().getDatabaseManager();
+    }
+
+    /**
+     * Creates a key-value database stored in a local file in the addon data folder.
+     *
+     * @param name The name of the database, the file is called {@code <name>.db}.
+     * @return The database, which has to be closed when the addon disables.
+     * @throws IOException if the file can't be opened.
+     */
+    public SolidityMapDatabase createLocalMapDatabase(@NotNull String name) throws IOException {
+        return getDatabaseManager().createLocalMapDatabase(new File(getAddonDataFolder(), name + ".db"));
     }
 
     public void registerCommand(SolidityCommand command) {
@@ -101,6 +218,79 @@ public abstract class SolidityAddon {
         }
     }
 
+    /**
+     * Extracts every resource below a directory of the addon JAR into the addon data folder, keeping the
+     * directory structure. The JAR is read in a single pass over its entries and files are copied through
+     * channels. Files whose content already matches the resource (same size and CRC-32) are not rewritten.
+     *
+     * @param directory The resource directory inside the addon JAR, e.g. {@code "lang"}. An empty directory extracts
+     *                  every resource, classes, {@code META-INF} and the addon descriptors are never extracted.
+     * @param replace   Whether existing files with a different content are overwritten.
+     * @return The amount of extracted files.
+     */
+    public int saveResources(@NotNull String directory, boolean replace) {
+        File jarFile = getLoader().getAddonManager().getAddonFiles().get(getName());
+        if (jarFile == null) {
+            getLogger().warn("Unable to save the resources in " + directory + " as the addon JAR is unknown.");
+            return 0;
+        }
+
+        String prefix = directory.isEmpty() || directory.endsWith("/") ? directory : directory + "/";
+        Path dataFolder = getAddonDataFolder().toPath().toAbsolutePath().normalize();
+        int saved = 0;
+        try (JarFile jar = new JarFile(jarFile)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().startsWith(prefix) || isMetadata(entry.getName())) continue;
+
+                Path target = dataFolder.resolve(entry.getName()).normalize();
+                if (!target.startsWith(dataFolder)) {
+                    getLogger().warn("Skipping the resource " + entry.getName() + " as it points outside of the addon folder.");
+                    continue;
+                }
+                if (Files.exists(target) && (!replace || matches(target, entry))) continue;
+
+                Files.createDirectories(target.getParent());
+                try (ReadableByteChannel source = Channels.newChannel(jar.getInputStream(entry));
+                     FileChannel destination = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long position = 0;
+                    long transferred;
+                    while ((transferred = destination.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+                        position += transferred;
+                    }
+                }
+                saved++;
+            }
+        } catch (IOException e) {
+            getLogger().error("SolidityAddon saveResources has thrown an error while trying to save the resources in " + directory + ": " + e);
+        }
+        return saved;
+    }
+
+    /**
+     * Checks whether a JAR entry belongs to the addon itself instead of its resources: classes, the manifest and
+     * signatures, and the descriptors. They are skipped even if the whole JAR is extracted with an empty directory.
+     */
+    private static boolean isMetadata(String name) {
+        return name.endsWith(".class") || name.startsWith("META-INF/") || name.equals("plugin.yml") || name.equals("solidity.addon.json");
+    }
+
+        private static boolean matches(Path file, JarEntry entry) throws IOException {
+        if (entry.getSize() < 0 || entry.getCrc() < 0 || Files.size(file) != entry.getSize()) return false;
+
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
     public InputStream getResource(String name) {
         return this.getClass().getClassLoader().getResourceAsStream(name);
     }
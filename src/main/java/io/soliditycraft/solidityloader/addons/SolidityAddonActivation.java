@@ -0,0 +1,42 @@
+package io.soliditycraft.solidityloader.addons;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The activation triggers of a lazily activated addon, declared as {@code activation} in {@code solidity.addon.json}.
+ * <p>An addon declaring triggers isn't loaded at startup. Its classes are only loaded and the addon is only
+ * enabled once one of its {@code /solidity} subcommands is used or one of its Bukkit events is called.</p>
+ */
+@Data
+public class SolidityAddonActivation {
+    /**
+     * Names of {@code /solidity} subcommands registered by the addon.
+     */
+    private List<String> commands = new ArrayList<>();
+    /**
+     * Fully qualified class names of Bukkit events the addon listens to.
+     */
+    private List<String> events = new ArrayList<>();
+    /**
+     * Permissions of the {@code /solidity} subcommands by name, checked before a subcommand activates the addon.
+     * They should match the permissions of the real commands, otherwise anyone can activate the addon through them.
+     */
+    private Map<String, String> permissions = new HashMap<>();
+
+    /**
+     * @param command The name of a {@code /solidity} subcommand.
+     * @return The declared permission of the subcommand, or null if it has none.
+     */
+    public String getPermission(String command) {
+        return permissions != null ? permissions.get(command) : null;
+    }
+
+    public boolean hasTriggers() {
+        return (commands != null && !commands.isEmpty()) || (events != null && !events.isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package io.soliditycraft.solidityloader.addons;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An addon JAR which has been discovered and whose {@code solidity.addon.json} has been parsed,
+ * but whose classes have not been loaded yet.
+ */
+@Getter
+public class SolidityAddonCandidate {
+
+    private final File file;
+    private final SolidityAddonData data;
+    /**
+     * Class names of the JAR mapped to the uncompressed size of their class file.
+     */
+    private final Map<String, Long> classes;
+    private final List<String> resources;
+    /**
+     * Time in nanoseconds spent on opening the JAR and parsing its descriptor.
+     */
+    private final long discoveryTime;
+    /**
+     * Whether the candidate was restored from the addon index instead of scanning the JAR.
+     */
+    private final boolean indexed;
+
+    public SolidityAddonCandidate(File file, SolidityAddonData data, Map<String, Long> classes, List<String> resources, long discoveryTime, boolean indexed) {
+        this.file = file;
+        this.data = data;
+        this.classes = classes;
+        this.resources = resources;
+        this.discoveryTime = discoveryTime;
+        this.indexed = indexed;
+    }
+}
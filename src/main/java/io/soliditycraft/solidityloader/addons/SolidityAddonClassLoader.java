@@ -0,0 +1,214 @@
+package io.soliditycraft.solidityloader.addons;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class loader of a single addon JAR.
+ * <p>Classes are resolved parent first: everything the JDK, Bukkit or the Solidity plugin classpath
+ * provides (including its libraries, e.g. org.json or Jackson) is always loaded through the parent class
+ * loader, even if the addon bundles its own copy. The addon JAR is only used for classes the parent
+ * doesn't provide.</p>
+ * <p>Classes of the addon are private to it, a class bundled by two addons is loaded by each addon
+ * separately. Classes an addon doesn't contain are looked up in a global class name index, so addons
+ * can use the classes of other addons and such a lookup is a single map access instead of walking
+ * through every addon.</p>
+ * <p>The class loader is registered as parallel capable, classes are locked by name instead of
+ * locking the whole class loader.</p>
+ */
+@Getter
+public class SolidityAddonClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * Class names of every loaded addon mapped to the class loader providing them.
+     */
+    private static final Map<String, SolidityAddonClassLoader> CLASS_INDEX = new ConcurrentHashMap<>();
+    /**
+     * Packages which are always loaded through the parent class loader.
+     */
+    private static final String[] PARENT_FIRST_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "org.bukkit.", "net.md_5.", "io.soliditycraft.solidityloader."
+    };
+
+    /**
+     * Nesting depth of {@link #findClass(String)} calls per thread, so the definition time of
+     * superclasses isn't counted twice.
+     */
+    private static final ThreadLocal<int[]> DEFINITION_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final String addonName;
+    private final Set<String> classNames;
+    /**
+     * Class names of this addon mapped to the uncompressed size of their class file.
+     */
+    private final Map<String, Long> classSizes;
+    /**
+     * Class names of this addon mapped to whether the parent class loader provides them as well.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Boolean> parentProvided = new ConcurrentHashMap<>();
+    /* Lookup statistics */
+    private final LongAdder localLookups = new LongAdder();
+    private final LongAdder addonLookups = new LongAdder();
+    private final LongAdder parentLookups = new LongAdder();
+    private final LongAdder failedLookups = new LongAdder();
+    /**
+     * Names of other addons mapped to the amount of classes this addon looked up from them.
+     */
+    private final Map<String, LongAdder> addonLookupTargets = new ConcurrentHashMap<>();
+    /* Definition statistics */
+    private final LongAdder definedClasses = new LongAdder();
+    private final LongAdder definedBytes = new LongAdder();
+    private final LongAdder definitionTime = new LongAdder();
+
+    /**
+     * Creates a new addon class loader.
+     *
+     * @param addonName  The name of the addon.
+     * @param jarUrl     The URL of the addon JAR.
+     * @param classes    The names of every class inside the addon JAR mapped to the size of their class file.
+     * @param parent     The parent class loader, usually the class loader of Solidity.
+     */
+    public SolidityAddonClassLoader(String addonName, URL jarUrl, Map<String, Long> classes, ClassLoader parent) {
+        super(new URL[]{jarUrl}, parent);
+        this.addonName = addonName;
+        this.classNames = Collections.unmodifiableSet(new HashSet<>(classes.keySet()));
+        this.classSizes = classes;
+    }
+
+    /**
+     * Registers the classes of this addon in the global class index, so other addons can use them.
+     * Classes provided by the parent class loader aren't registered, as they are never loaded from this addon.
+     *
+     * @return Names of classes which were already provided by another addon. The addons keep using their
+     *         own copy, other addons resolve the class through the addon registered first.
+     */
+    public List<String> register() {
+        List<String> conflicts = new ArrayList<>();
+        for (String className : classNames) {
+            if (isParentFirst(className) || isProvidedByParent(className)) continue;
+
+            SolidityAddonClassLoader owner = CLASS_INDEX.putIfAbsent(className, this);
+            if (owner != null && owner != this) {
+                conflicts.add(className);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Removes the classes of this addon from the global class index.
+     */
+    public void unregister() {
+        for (String className : classNames) {
+            CLASS_INDEX.remove(className, this);
+        }
+    }
+
+    /**
+     * Finds the class loader of the addon providing a class.
+     *
+     * @param className The binary name of the class.
+     * @return The class loader providing the class, or null if no loaded addon provides it.
+     */
+    public static SolidityAddonClassLoader getOwner(@NotNull String className) {
+        return CLASS_INDEX.get(className);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> result;
+
+        if (!isParentFirst(name) && classNames.contains(name) && !isProvidedByParent(name)) {
+            localLookups.increment();
+            result = loadLocalClass(name);
+        } else {
+            SolidityAddonClassLoader owner = isParentFirst(name) || classNames.contains(name) ? null : CLASS_INDEX.get(name);
+            if (owner != null && owner != this) {
+                addonLookups.increment();
+                addonLookupTargets.computeIfAbsent(owner.getAddonName(), (k) -> new LongAdder()).increment();
+                result = owner.loadLocalClass(name);
+            } else {
+                try {
+                    result = getParent().loadClass(name);
+                    parentLookups.increment();
+                } catch (ClassNotFoundException e) {
+                    failedLookups.increment();
+                    throw e;
+                }
+            }
+        }
+
+        if (resolve) resolveClass(result);
+        return result;
+    }
+
+    /**
+     * Loads a class from this addon JAR only, without any delegation.
+     *
+     * @param name The binary name of the class.
+     * @return The loaded class.
+     * @throws ClassNotFoundException if the class is not part of this addon JAR.
+     */
+    Class<?> loadLocalClass(String name) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            return loaded != null ? loaded : findClass(name);
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        int[] depth = DEFINITION_DEPTH.get();
+        long start = depth[0] == 0 ? System.nanoTime() : 0;
+        depth[0]++;
+        try {
+            Class<?> result = super.findClass(name);
+            definedClasses.increment();
+            Long size = classSizes.get(name);
+            if (size != null && size > 0) definedBytes.add(size);
+            return result;
+        } finally {
+            depth[0]--;
+            if (depth[0] == 0) definitionTime.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks whether the parent class loader provides a class of this addon as well, e.g. a library
+     * which is bundled by the addon and Solidity. The result is cached per class.
+     */
+    private boolean isProvidedByParent(String name) {
+        return parentProvided.computeIfAbsent(name, (k) -> getParent().getResource(k.replace('.', '/') + ".class") != null);
+    }
+
+    private static boolean isParentFirst(String name) {
+        for (String prefix : PARENT_FIRST_PACKAGES) {
+            if (name.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The total amount of class lookups which went through this class loader.
+     */
+    public long getTotalLookups() {
+        return localLookups.sum() + addonLookups.sum() + parentLookups.sum() + failedLookups.sum();
+    }
+}
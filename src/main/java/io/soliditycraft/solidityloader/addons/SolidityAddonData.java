@@ -2,6 +2,9 @@ package io.soliditycraft.solidityloader.addons;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class SolidityAddonData {
     private String name;
@@ -10,4 +13,16 @@ public class SolidityAddonData {
     private String main;
     private String id;
     private boolean loadPlugin;
+    /**
+     * Names of addons which must be loaded before this addon, the addon won't load without them.
+     */
+    private List<String> depends = new ArrayList<>();
+    /**
+     * Names of addons which should be loaded before this addon if they are present.
+     */
+    private List<String> softdepends = new ArrayList<>();
+    /**
+     * Triggers activating the addon on first use, the addon is loaded at startup if there are none.
+     */
+    private SolidityAddonActivation activation;
 }
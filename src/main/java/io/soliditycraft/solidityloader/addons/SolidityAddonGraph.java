@@ -0,0 +1,169 @@
+package io.soliditycraft.solidityloader.addons;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependency graph of a set of discovered addons.
+ * <p>The graph validates the {@code depends} and {@code softdepends} of every addon before anything
+ * is loaded: addons with missing dependencies, duplicated names or dependency cycles are rejected together
+ * with every addon depending on them. The remaining addons are topologically sorted into layers, every
+ * addon of a layer only depends on addons of previous layers (or on already loaded addons).</p>
+ */
+@Getter
+public class SolidityAddonGraph {
+
+    /**
+     * The sorted layers of the graph, addons within a layer keep their discovery order.
+     */
+    private final List<List<SolidityAddonCandidate>> layers = new ArrayList<>();
+    /**
+     * Rejected addon names mapped to the reason they were rejected.
+     */
+    private final Map<String, String> rejected = new LinkedHashMap<>();
+
+    private SolidityAddonGraph() {
+    }
+
+    /**
+     * Builds the dependency graph of the given candidates.
+     *
+     * @param candidates The discovered addons in their discovery order.
+     * @param loaded     Names of addons which are already loaded and satisfy dependencies.
+     * @return The validated and sorted graph.
+     */
+    public static @NotNull SolidityAddonGraph build(@NotNull List<SolidityAddonCandidate> candidates, @NotNull Collection<String> loaded) {
+        SolidityAddonGraph graph = new SolidityAddonGraph();
+        Map<String, SolidityAddonCandidate> nodes = new LinkedHashMap<>();
+
+        for (SolidityAddonCandidate candidate : candidates) {
+            String name = candidate.getData().getName();
+            if (nodes.containsKey(name) || loaded.contains(name)) {
+                graph.rejected.put(name + " (" + candidate.getFile().getName() + ")", "an addon with the same name is already present");
+            } else if (dependencies(candidate.getData().getDepends()).contains(name)) {
+                graph.rejected.put(name, "the addon depends on itself");
+            } else {
+                nodes.put(name, candidate);
+            }
+        }
+
+        // Reject addons with missing hard dependencies until nothing changes, so dependents are rejected as well
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (SolidityAddonCandidate candidate : new ArrayList<>(nodes.values())) {
+                for (String dependency : dependencies(candidate.getData().getDepends())) {
+                    if (nodes.containsKey(dependency) || loaded.contains(dependency)) continue;
+
+                    String reason = graph.rejected.containsKey(dependency)
+                            ? "its dependency " + dependency + " was rejected"
+                            : "missing dependency " + dependency;
+                    graph.rejected.put(candidate.getData().getName(), reason);
+                    nodes.remove(candidate.getData().getName());
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        graph.sort(nodes);
+        return graph;
+    }
+
+    private void sort(Map<String, SolidityAddonCandidate> nodes) {
+        Set<String> remaining = new HashSet<>(nodes.keySet());
+
+        while (!remaining.isEmpty()) {
+            List<SolidityAddonCandidate> layer = new ArrayList<>();
+            for (SolidityAddonCandidate candidate : nodes.values()) {
+                String name = candidate.getData().getName();
+                if (remaining.contains(name) && !hasPending(candidate, remaining, true)) {
+                    layer.add(candidate);
+                }
+            }
+
+            if (layer.isEmpty()) {
+                // Every remaining addon waits on another one, soft dependencies are dropped to break the cycle
+                for (SolidityAddonCandidate candidate : nodes.values()) {
+                    if (remaining.contains(candidate.getData().getName()) && !hasPending(candidate, remaining, false)) {
+                        layer.add(candidate);
+                        break;
+                    }
+                }
+            }
+
+            if (layer.isEmpty()) {
+                rejectCycles(nodes, remaining);
+                return;
+            }
+
+            for (SolidityAddonCandidate candidate : layer) {
+                remaining.remove(candidate.getData().getName());
+            }
+            layers.add(layer);
+        }
+    }
+
+    private boolean hasPending(SolidityAddonCandidate candidate, Set<String> remaining, boolean includeSoft) {
+        for (String dependency : dependencies(candidate.getData().getDepends())) {
+            if (remaining.contains(dependency)) return true;
+        }
+        if (includeSoft) {
+            for (String dependency : dependencies(candidate.getData().getSoftdepends())) {
+                if (remaining.contains(dependency) && !dependency.equals(candidate.getData().getName())) return true;
+            }
+        }
+        return false;
+    }
+
+    private void rejectCycles(Map<String, SolidityAddonCandidate> nodes, Set<String> remaining) {
+        for (SolidityAddonCandidate candidate : nodes.values()) {
+            String name = candidate.getData().getName();
+            if (!remaining.contains(name) || rejected.containsKey(name)) continue;
+
+            List<String> cycle = findCycle(name, nodes, remaining, new ArrayList<>());
+            if (cycle != null && cycle.get(0).equals(name)) {
+                rejected.put(name, "dependency cycle " + String.join(" -> ", cycle));
+            } else {
+                rejected.put(name, "it depends on an addon in a dependency cycle");
+            }
+        }
+    }
+
+    private List<String> findCycle(String name, Map<String, SolidityAddonCandidate> nodes, Set<String> remaining, List<String> path) {
+        int index = path.indexOf(name);
+        if (index != -1) {
+            List<String> cycle = new ArrayList<>(path.subList(index, path.size()));
+            cycle.add(name);
+            return cycle;
+        }
+
+        path.add(name);
+        for (String dependency : dependencies(nodes.get(name).getData().getDepends())) {
+            if (!remaining.contains(dependency)) continue;
+            List<String> cycle = findCycle(dependency, nodes, remaining, path);
+            if (cycle != null) return cycle;
+        }
+        path.remove(path.size() - 1);
+        return null;
+    }
+
+    /**
+     * Returns the given dependency list, or an empty list if the descriptor omitted it.
+     *
+     * @param dependencies The dependency list of a descriptor, may be null.
+     * @return A non-null list of dependency names.
+     */
+    static @NotNull List<String> dependencies(List<String> dependencies) {
+        return dependencies != null ? dependencies : Collections.emptyList();
+    }
+}
@@ -0,0 +1,243 @@
+package io.soliditycraft.solidityloader.addons;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.soliditycraft.solidityloader.SolidityLogger;
+import lombok.Data;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent index of addon JARs stored in the loader data folder.
+ * <p>Each entry is keyed by the JAR path and remembers its size, modification time and content hash
+ * together with the parsed {@link SolidityAddonData} and the class and resource listing of the JAR.
+ * Unchanged addons can therefore be discovered without opening the archive again.</p>
+ * <p>A corrupt index file or a stale entry is never fatal: the affected addons are simply scanned again.</p>
+ */
+public class SolidityAddonIndex {
+
+    /**
+     * Version of the index file format, bumping it invalidates every existing index.
+     * 2: addon dependencies ({@code depends}, {@code softdepends}).
+     * 3: lazy activation ({@code activation}).
+     * 4: permissions of lazy activation commands ({@code activation.permissions}).
+     */
+    private static final int FORMAT_VERSION = 4;
+
+    @Getter
+    private final File file;
+    private final ObjectMapper objectMapper;
+    private final SolidityLogger logger;
+    private final boolean verifyHash;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * Creates a new addon index.
+     *
+     * @param file         The file the index is stored in.
+     * @param objectMapper The object mapper used to read and write the index.
+     * @param logger       The logger used to report a corrupt index.
+     * @param verifyHash   Whether the content hash should be verified even if size and modification time match.
+     */
+    public SolidityAddonIndex(File file, ObjectMapper objectMapper, SolidityLogger logger, boolean verifyHash) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.logger = logger;
+        this.verifyHash = verifyHash;
+    }
+
+    /**
+     * Loads the index from disk. A missing, outdated or corrupt index file results in an empty index.
+     */
+    public void load() {
+        entries.clear();
+        if (!file.exists()) return;
+
+        try {
+            IndexFile indexFile = objectMapper.readValue(file, IndexFile.class);
+            if (indexFile.getVersion() != FORMAT_VERSION || indexFile.getAddons() == null) {
+                logger.warn("The addon index uses an outdated format, rebuilding it.");
+                dirty = true;
+                return;
+            }
+            entries.putAll(indexFile.getAddons());
+        } catch (IOException e) {
+            logger.warn("The addon index is corrupted, rebuilding it: " + e.getMessage());
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the index to disk if it changed since it was loaded.
+     */
+    public void save() {
+        if (!dirty) return;
+
+        IndexFile indexFile = new IndexFile();
+        indexFile.setVersion(FORMAT_VERSION);
+        indexFile.setAddons(new LinkedHashMap<>(entries));
+
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            if (!file.getParentFile().exists()) file.getParentFile().mkdirs();
+            objectMapper.writeValue(temporary, indexFile);
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.error("Unable to save the addon index: " + e);
+        }
+    }
+
+    /**
+     * Looks up a fresh entry for the given JAR.
+     *
+     * @param jarFile The addon JAR.
+     * @return The indexed entry, or null if the JAR is unknown, changed or its entry is corrupted.
+     */
+    public @Nullable Entry lookup(@NotNull File jarFile) {
+        String key = key(jarFile);
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+
+        if (!entry.isValid()) {
+            remove(key);
+            return null;
+        }
+
+        long size = jarFile.length();
+        long lastModified = jarFile.lastModified();
+        if (entry.getSize() != size) return null;
+        if (entry.getLastModified() == lastModified && !verifyHash) return entry;
+
+        // The JAR was touched (or verification is forced), only the content hash can tell if it really changed
+        try {
+            if (!entry.getHash().equals(hash(jarFile))) return null;
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (entry.getLastModified() != lastModified) {
+            entry.setLastModified(lastModified);
+            dirty = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores or replaces the entry of a JAR.
+     *
+     * @param entry The entry to store.
+     */
+    public void update(@NotNull Entry entry) {
+        entries.put(entry.getPath(), entry);
+        dirty = true;
+    }
+
+    /**
+     * Removes the entries of every JAR which is not part of the given files.
+     *
+     * @param jarFiles The JAR files which still exist.
+     */
+    public void retain(@NotNull Collection<File> jarFiles) {
+        Set<String> keys = new HashSet<>();
+        for (File jarFile : jarFiles) {
+            keys.add(key(jarFile));
+        }
+        for (String key : new ArrayList<>(entries.keySet())) {
+            if (!keys.contains(key)) remove(key);
+        }
+    }
+
+    private void remove(String key) {
+        if (entries.remove(key) != null) dirty = true;
+    }
+
+    /**
+     * Creates the index key of a JAR file.
+     *
+     * @param jarFile The JAR file.
+     * @return The absolute path of the file.
+     */
+    public static String key(@NotNull File jarFile) {
+        return jarFile.getAbsolutePath();
+    }
+
+    /**
+     * Computes the SHA-256 content hash of a file.
+     *
+     * @param file The file to hash.
+     * @return The hex encoded hash.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String hash(@NotNull File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The on-disk layout of the index.
+     */
+    @Data
+    public static class IndexFile {
+        private int version;
+        private Map<String, Entry> addons;
+    }
+
+    /**
+     * An indexed addon JAR.
+     */
+    @Data
+    public static class Entry {
+        private String path;
+        private long size;
+        private long lastModified;
+        private String hash;
+        private SolidityAddonData descriptor;
+        /**
+         * Class names of the JAR mapped to the uncompressed size of their class file.
+         */
+        private Map<String, Long> classes;
+        private List<String> resources;
+
+        boolean isValid() {
+            return path != null && hash != null && classes != null && resources != null && descriptor != null
+                    && descriptor.getMain() != null && descriptor.getName() != null
+                    && descriptor.getVersion() != null && descriptor.getId() != null;
+        }
+    }
+}
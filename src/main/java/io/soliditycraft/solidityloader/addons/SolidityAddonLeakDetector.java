@@ -0,0 +1,233 @@
+package io.soliditycraft.solidityloader.addons;
+
+import io.soliditycraft.solidityloader.SolidityLoader;
+import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.commands.SolidityCommand;
+import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies that the class loaders of unloaded addons are garbage collected.
+ * <p>Every unloaded class loader is tracked by a {@link PhantomReference}. If it isn't collected within the
+ * configured time, a single full garbage collection is requested; if the loader survives it, it is reported as
+ * leaked together with the holders which could be found: Bukkit listeners, scheduled tasks, services, Solidity
+ * commands, threads and other addons still using its classes.</p>
+ */
+public class SolidityAddonLeakDetector {
+
+    private final SolidityLoader loader;
+    private final SolidityLogger logger;
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private final long timeout;
+    private BukkitTask checkTask;
+
+    /**
+     * Creates a new leak detector.
+     *
+     * @param loader  The Solidity loader, used to schedule the checks.
+     * @param logger  The logger used to report leaks.
+     * @param timeout Milliseconds an unloaded class loader may stay alive before it is reported.
+     */
+    public SolidityAddonLeakDetector(SolidityLoader loader, SolidityLogger logger, long timeout) {
+        this.loader = loader;
+        this.logger = logger;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts tracking the class loader of an unloaded addon.
+     *
+     * @param addonName   The name of the unloaded addon.
+     * @param classLoader The class loader of the unloaded addon.
+     */
+    public synchronized void watch(@NotNull String addonName, @NotNull ClassLoader classLoader) {
+        watches.add(new Watch(addonName, classLoader, queue, System.currentTimeMillis() + timeout));
+        if (checkTask == null && loader.isEnabled()) {
+            checkTask = Bukkit.getScheduler().runTaskTimer(loader, this::check, 20L, 20L);
+        }
+    }
+
+    /**
+     * Checks the tracked class loaders. Collected loaders are reported as unloaded. Loaders which are still alive
+     * after the timeout get one full collection, requested at most once per check, and are reported as leaked if
+     * they're still alive on the following check.
+     */
+    public synchronized void check() {
+        Reference<? extends ClassLoader> reference;
+        while ((reference = queue.poll()) != null) {
+            Watch watch = (Watch) reference;
+            watches.remove(watch);
+            logger.info("The class loader of the addon " + watch.addonName + " has been garbage collected.");
+        }
+
+        long now = System.currentTimeMillis();
+        boolean collect = false;
+        for (Watch watch : new ArrayList<>(watches)) {
+            if (now < watch.deadline) continue;
+
+            ClassLoader classLoader = watch.weakReference.get();
+            if (classLoader == null) continue; // Collected, the phantom reference is enqueued soon
+            if (!watch.collectionRequested) {
+                // Class loaders are only collected by a full collection, which may not have happened naturally yet
+                watch.collectionRequested = true;
+                collect = true;
+                continue;
+            }
+
+            watches.remove(watch);
+            List<String> holders = findHolders(classLoader);
+            logger.warn("The class loader of the addon " + watch.addonName + " is still retained " + (timeout / 1000) + "s after unloading.");
+            if (holders.isEmpty()) {
+                logger.warn("No known holders were found, a heap dump is required to find the leak.");
+            } else {
+                logger.warn("Possible holders: " + String.join(", ", holders));
+            }
+        }
+
+        if (collect) {
+            System.gc();
+        } else if (watches.isEmpty() && checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+    }
+
+    /**
+     * Searches for known objects which keep a class loader alive.
+     *
+     * @param classLoader The class loader of an unloaded addon.
+     * @return Descriptions of the found holders.
+     */
+    public List<String> findHolders(@NotNull ClassLoader classLoader) {
+        List<String> holders = new ArrayList<>();
+
+        for (RegisteredListener listener : findListeners(classLoader)) {
+            holders.add("listener " + listener.getListener().getClass().getName() + " (" + listener.getPlugin().getName() + ")");
+        }
+        for (BukkitTask task : findTasks(classLoader)) {
+            holders.add("task #" + task.getTaskId());
+        }
+        for (RegisteredServiceProvider<?> provider : findServices(classLoader)) {
+            holders.add("service " + provider.getService().getName());
+        }
+        for (SolidityCommand command : loader.getCommandManager().getCommands()) {
+            if (isOwnedBy(command, classLoader)) holders.add("command /solidity " + command.getName());
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (isOwnedBy(thread, classLoader) || thread.getContextClassLoader() == classLoader) {
+                holders.add("thread " + thread.getName());
+            }
+        }
+        for (SolidityAddon addon : loader.getAddonManager().getLoadedAddons().values()) {
+            ClassLoader addonClassLoader = addon.getClass().getClassLoader();
+            if (addonClassLoader == classLoader) {
+                holders.add("loaded addon " + addon.getName());
+            } else if (addonClassLoader instanceof SolidityAddonClassLoader) {
+                SolidityAddonClassLoader other = (SolidityAddonClassLoader) addonClassLoader;
+                if (classLoader instanceof SolidityAddonClassLoader
+                        && other.getAddonLookupTargets().containsKey(((SolidityAddonClassLoader) classLoader).getAddonName())) {
+                    holders.add("addon " + addon.getName() + " (uses its classes)");
+                }
+            }
+        }
+
+        return holders;
+    }
+
+    /**
+     * Finds every registered Bukkit listener whose class was loaded by the given class loader.
+     *
+     * @param classLoader The class loader of an addon.
+     * @return The found listeners.
+     */
+    static List<RegisteredListener> findListeners(@NotNull ClassLoader classLoader) {
+        List<RegisteredListener> listeners = new ArrayList<>();
+        for (HandlerList handlerList : HandlerList.getHandlerLists()) {
+            for (RegisteredListener listener : handlerList.getRegisteredListeners()) {
+                if (isOwnedBy(listener.getListener(), classLoader) && !listeners.contains(listener)) {
+                    listeners.add(listener);
+                }
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Finds every pending scheduler task whose runnable class was loaded by the given class loader.
+     * <p>Bukkit doesn't expose the runnable of a task, the implementation's {@code getTaskClass} is used if present.</p>
+     *
+     * @param classLoader The class loader of an addon.
+     * @return The found tasks.
+     */
+    static List<BukkitTask> findTasks(@NotNull ClassLoader classLoader) {
+        List<BukkitTask> tasks = new ArrayList<>();
+        for (BukkitTask task : Bukkit.getScheduler().getPendingTasks()) {
+            try {
+                Method method = task.getClass().getMethod("getTaskClass");
+                Object taskClass = method.invoke(task);
+                if (taskClass instanceof Class && ((Class<?>) taskClass).getClassLoader() == classLoader) {
+                    tasks.add(task);
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // The server implementation doesn't expose the task class
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Finds every registered service provider whose class was loaded by the given class loader.
+     *
+     * @param classLoader The class loader of an addon.
+     * @return The found service providers.
+     */
+    static List<RegisteredServiceProvider<?>> findServices(@NotNull ClassLoader classLoader) {
+        List<RegisteredServiceProvider<?>> services = new ArrayList<>();
+        for (Class<?> service : Bukkit.getServicesManager().getKnownServices()) {
+            for (RegisteredServiceProvider<?> provider : Bukkit.getServicesManager().getRegistrations(service)) {
+                if (isOwnedBy(provider.getProvider(), classLoader)) services.add(provider);
+            }
+        }
+        return services;
+    }
+
+    static boolean isOwnedBy(Object object, ClassLoader classLoader) {
+        return object != null && object.getClass().getClassLoader() == classLoader;
+    }
+
+    private static class Watch extends PhantomReference<ClassLoader> {
+
+        private final String addonName;
+        /**
+         * Used to inspect the loader once it's considered leaked, unlike the phantom reference this one can be read.
+         */
+        private final WeakReference<ClassLoader> weakReference;
+        private final long deadline;
+        /**
+         * Whether a full collection was requested for this loader after its deadline.
+         */
+        private boolean collectionRequested;
+
+        Watch(String addonName, ClassLoader classLoader, ReferenceQueue<ClassLoader> queue, long deadline) {
+            super(classLoader, queue);
+            this.addonName = addonName;
+            this.weakReference = new WeakReference<>(classLoader);
+            this.deadline = deadline;
+        }
+    }
+}
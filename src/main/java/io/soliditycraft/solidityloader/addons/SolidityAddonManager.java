@@ -3,18 +3,36 @@ package io.soliditycraft.solidityloader.addons;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.soliditycraft.solidityloader.SolidityLoader;
 import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.utils.SolidityThreadFactory;
 import lombok.Getter;
 import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -26,16 +44,45 @@ import java.util.jar.JarFile;
 @Getter
 public class SolidityAddonManager {
 
-    private final Map<String, SolidityAddon> loadedAddons = new HashMap<>();
-    private final Map<String, SolidityAddon> enabledAddons = new HashMap<>();
+    private final Map<String, SolidityAddon> loadedAddons = new LinkedHashMap<>();
+    private final Map<String, SolidityAddon> enabledAddons = new LinkedHashMap<>();
+    /**
+     * Bukkit plugins loaded from addon JARs with {@code loadPlugin} enabled.
+     */
+    private final Map<String, Plugin> addonPlugins = new HashMap<>();
+    /**
+     * JAR files of the loaded addons.
+     */
+    private final Map<String, File> addonFiles = new HashMap<>();
+    /**
+     * Addons waiting for their first activation trigger.
+     */
+    private final Map<String, SolidityLazyAddon> lazyAddons = new LinkedHashMap<>();
+    /**
+     * Startup timings of the loaded addons.
+     */
+    private final Map<String, SolidityAddonTimings> timings = new LinkedHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final SolidityLoader loader;
     private final SolidityLogger logger = SolidityLogger.getLogger();
     private final PluginManager pluginManager;
+    private final SolidityAddonIndex index;
+    private final SolidityAddonLeakDetector leakDetector;
+    private SolidityAddonWatcher watcher;
 
     public SolidityAddonManager(SolidityLoader loader) {
         this.loader = loader;
         pluginManager = Bukkit.getPluginManager();
+        leakDetector = new SolidityAddonLeakDetector(loader, logger, loader.getConfig().getLong("addons.unload.leak_check_seconds", 30) * 1000L);
+
+        if (loader.getConfig().getBoolean("addons.index.enabled", true)) {
+            File indexFile = new File(loader.getDataFolder(), "addon-index.json");
+            boolean verifyHash = loader.getConfig().getBoolean("addons.index.verify_hash", false);
+            index = new SolidityAddonIndex(indexFile, objectMapper, logger, verifyHash);
+            index.load();
+        } else {
+            index = null;
+        }
     }
 
     /**
@@ -47,57 +94,432 @@ public class SolidityAddonManager {
      */
     public void loadAddon(@NotNull File jarFile) throws Exception {
         logger.info("Loading Solidity Addon: " + jarFile.getName());
+        loadAddon(discoverAddon(jarFile));
+    }
+
+    /**
+     * Opens an addon JAR and parses its {@code solidity.addon.json} without loading any of its classes.
+     * <p>This method is thread-safe and is used by the parallel discovery phase.</p>
+     *
+     * @param jarFile The JAR file containing the addon.
+     * @return The discovered addon candidate.
+     * @throws Exception If the descriptor is missing, unreadable or incomplete.
+     */
+    public SolidityAddonCandidate discoverAddon(@NotNull File jarFile) throws Exception {
+        long start = System.nanoTime();
+        SolidityAddonIndex.Entry indexed = index != null ? index.lookup(jarFile) : null;
+        if (indexed != null) {
+            return new SolidityAddonCandidate(jarFile, indexed.getDescriptor(), indexed.getClasses(), indexed.getResources(), System.nanoTime() - start, true);
+        }
+
         try (JarFile jar = new JarFile(jarFile)) {
             JarEntry entry = jar.getJarEntry("solidity.addon.json");
             if (entry == null) {
                 throw new IllegalArgumentException("solidity.addon.json not found in the JAR: " + jarFile.getName());
             }
 
-            InputStream inputStream = jar.getInputStream(entry);
-            SolidityAddonData addonInfo = objectMapper.readValue(inputStream, SolidityAddonData.class);
-            String name = addonInfo.getName();
-            String version = addonInfo.getVersion();
-            String id = addonInfo.getId();
-            String mainClassName = addonInfo.getMain();
-            boolean loadPlugin = addonInfo.isLoadPlugin();
+            SolidityAddonData addonInfo;
+            try (InputStream inputStream = jar.getInputStream(entry)) {
+                addonInfo = objectMapper.readValue(inputStream, SolidityAddonData.class);
+            }
 
-            if (mainClassName == null || name == null || version == null || id == null) {
+            if (addonInfo.getMain() == null || addonInfo.getName() == null || addonInfo.getVersion() == null || addonInfo.getId() == null) {
                 throw new IllegalArgumentException("The addon data provided within the addon jar is corrupted. Please check: " + jarFile.getName());
             }
 
-            URL jarUrl = jarFile.toURI().toURL();
-            URLClassLoader classLoader = new URLClassLoader(new URL[]{jarUrl}, getClass().getClassLoader());
+            Map<String, Long> classes = new HashMap<>();
+            List<String> resources = new ArrayList<>();
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry jarEntry = entries.nextElement();
+                String entryName = jarEntry.getName();
+                if (jarEntry.isDirectory()) continue;
+
+                if (entryName.endsWith(".class") && !entryName.startsWith("META-INF/") && !entryName.endsWith("module-info.class")) {
+                    classes.put(entryName.substring(0, entryName.length() - 6).replace('/', '.'), jarEntry.getSize());
+                } else {
+                    resources.add(entryName);
+                }
+            }
+
+            if (index != null) {
+                SolidityAddonIndex.Entry indexEntry = new SolidityAddonIndex.Entry();
+                indexEntry.setPath(SolidityAddonIndex.key(jarFile));
+                indexEntry.setSize(jarFile.length());
+                indexEntry.setLastModified(jarFile.lastModified());
+                indexEntry.setHash(SolidityAddonIndex.hash(jarFile));
+                indexEntry.setDescriptor(addonInfo);
+                indexEntry.setClasses(classes);
+                indexEntry.setResources(resources);
+                index.update(indexEntry);
+            }
+
+            return new SolidityAddonCandidate(jarFile, addonInfo, classes, resources, System.nanoTime() - start, false);
+        }
+    }
+
+    /**
+     * Discovers multiple addon JARs concurrently on a worker pool.
+     * <p>The returned candidates keep the order of the given files; JARs which could not be
+     * discovered are logged and left out.</p>
+     *
+     * @param jarFiles The JAR files to discover.
+     * @return The discovered addon candidates.
+     */
+    public List<SolidityAddonCandidate> discoverAddons(@NotNull List<File> jarFiles) {
+        List<SolidityAddonCandidate> candidates = new ArrayList<>();
+        if (jarFiles.isEmpty()) return candidates;
+
+        int threads = workerThreads(jarFiles.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new SolidityThreadFactory("Solidity Discovery"));
+        long start = System.nanoTime();
+        long serialTime = 0;
+        try {
+            List<Future<SolidityAddonCandidate>> futures = new ArrayList<>();
+            for (File jarFile : jarFiles) {
+                futures.add(executor.submit(() -> discoverAddon(jarFile)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    SolidityAddonCandidate candidate = futures.get(i).get();
+                    serialTime += candidate.getDiscoveryTime();
+                    candidates.add(candidate);
+                } catch (ExecutionException e) {
+                    getLogger().error("Unable to discover Addon " + jarFiles.get(i).getName() + " due to: \n" + e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long wallTime = System.nanoTime() - start;
+        long indexedCount = candidates.stream().filter(SolidityAddonCandidate::isIndexed).count();
+        logger.info(String.format("Discovered %d addon(s) (%d from the addon index) in %.1fms using %d thread(s) (serial discovery would take %.1fms)",
+                candidates.size(), indexedCount, wallTime / 1_000_000D, threads, serialTime / 1_000_000D));
+        return candidates;
+    }
+
+    /**
+     * Prepares and loads an already discovered addon. Must be called from the server thread.
+     *
+     * @param candidate The discovered addon.
+     * @throws Exception If an error occurs while loading the addon classes.
+     */
+    public void loadAddon(@NotNull SolidityAddonCandidate candidate) throws Exception {
+        loadAddon(prepareAddon(candidate));
+    }
+
+    /**
+     * Prepares a discovered addon for loading: validates its descriptor, creates its class loader
+     * and preloads its main class.
+     * <p>This method is thread-safe and runs in parallel for every addon of a dependency layer.</p>
+     *
+     * @param candidate The discovered addon.
+     * @return The prepared addon.
+     * @throws Exception If the descriptor is invalid or the main class cannot be loaded.
+     */
+    public PreparedAddon prepareAddon(@NotNull SolidityAddonCandidate candidate) throws Exception {
+        File jarFile = candidate.getFile();
+        String mainClassName = candidate.getData().getMain();
+        if (!candidate.getClasses().containsKey(mainClassName)) {
+            throw new IllegalArgumentException("The main class " + mainClassName + " does not exist in the JAR: " + jarFile.getName());
+        }
+
+        long start = System.nanoTime();
+        URL jarUrl = jarFile.toURI().toURL();
+        String name = candidate.getData().getName();
+        SolidityAddonClassLoader classLoader = new SolidityAddonClassLoader(name, jarUrl, candidate.getClasses(), getClass().getClassLoader());
+        List<String> conflicts = classLoader.register();
+        if (!conflicts.isEmpty()) {
+            getLogger().warn("The addon " + name + " contains " + conflicts.size() + " class(es) already provided by another addon, e.g. " + conflicts.get(0));
+        }
+        long classLoaderCreation = System.nanoTime() - start;
 
-            Class<?> mainClass = classLoader.loadClass(mainClassName);
+        try {
+            start = System.nanoTime();
+            Class<?> mainClass = Class.forName(mainClassName, false, classLoader);
             if (!SolidityAddon.class.isAssignableFrom(mainClass)) {
                 throw new IllegalArgumentException("The main class does not extend SolidityAddon: " + mainClassName);
             }
+            return new PreparedAddon(candidate, classLoader, mainClass, classLoaderCreation, System.nanoTime() - start);
+        } catch (Exception | LinkageError e) {
+            classLoader.unregister();
+            classLoader.close();
+            throw e;
+        }
+    }
 
-            SolidityAddon addon = (SolidityAddon) mainClass.getDeclaredConstructor().newInstance();
+    /**
+     * Loads a prepared addon: instantiates the main class and calls {@link SolidityAddon#onLoad()}.
+     * Must be called from the server thread, after every dependency of the addon has been loaded.
+     *
+     * @param prepared The prepared addon.
+     * @throws Exception If a dependency is missing or the addon fails to load.
+     */
+    public void loadAddon(@NotNull PreparedAddon prepared) throws Exception {
+        SolidityAddonCandidate candidate = prepared.getCandidate();
+        File jarFile = candidate.getFile();
+        SolidityAddonData addonInfo = candidate.getData();
+        String name = addonInfo.getName();
+        String version = addonInfo.getVersion();
+        String id = addonInfo.getId();
+        boolean loadPlugin = addonInfo.isLoadPlugin();
+
+        SolidityAddonTimings addonTimings = new SolidityAddonTimings(name, version);
+        addonTimings.setIndexed(candidate.isIndexed());
+        addonTimings.setDescriptorParse(candidate.getDiscoveryTime());
+        addonTimings.setClassLoaderCreation(prepared.getClassLoaderCreation());
+        addonTimings.setMainClassLoad(prepared.getMainClassLoad());
+
+        try {
+            if (loadedAddons.containsKey(name)) {
+                throw new IllegalStateException("An addon with the name " + name + " is already loaded");
+            }
+            for (String dependency : SolidityAddonGraph.dependencies(addonInfo.getDepends())) {
+                if (!loadedAddons.containsKey(dependency)) {
+                    throw new IllegalStateException("Missing dependency " + dependency + " of the addon " + name);
+                }
+            }
+
+            SolidityAddon addon = (SolidityAddon) prepared.getMainClass().getDeclaredConstructor().newInstance();
             File addonDataFolder = new File(SolidityLoader.SOLIDITY_ADDON_FOLDER, id);
             addon.initialize(this.loader, addonInfo, addonDataFolder);
             loadedAddons.put(name, addon);
+            addonFiles.put(name, jarFile);
+
+            long start = System.nanoTime();
             addon.onLoad();
+            addonTimings.setOnLoad(System.nanoTime() - start);
+        } catch (Exception | LinkageError e) {
+            loadedAddons.remove(name);
+            addonFiles.remove(name);
+            prepared.getClassLoader().unregister();
+            prepared.getClassLoader().close();
+            throw e;
+        }
+
+        if (loadPlugin) {
+            long start = System.nanoTime();
+            Plugin plugin = getPluginManager().loadPlugin(jarFile);
+            addonTimings.setPluginLoad(System.nanoTime() - start);
+
+            if (plugin != null) {
+                addonPlugins.put(name, plugin);
+                start = System.nanoTime();
+                getPluginManager().enablePlugin(plugin);
+                addonTimings.setPluginEnable(System.nanoTime() - start);
+            }
+        }
+
+        addonTimings.recordClassLoading(prepared.getClassLoader());
+        timings.put(name, addonTimings);
+
+        logger.info("Loaded Solidity Addon: " + name + " (" + id + ") v" + version);
+    }
+
+    /**
+     * Unloads an addon and releases every resource it holds: it is disabled, its listeners, commands,
+     * tasks, services and player data stores are unregistered, its open GUIs are closed, its Bukkit plugin is
+     * disabled and its class loader is closed.
+     * Addons depending on it are unloaded first. Afterwards the class loader is watched by the
+     * {@link SolidityAddonLeakDetector}, which reports it if it isn't garbage collected.
+     *
+     * @param name The name of the addon to unload.
+     */
+    public void unloadAddon(String name) {
+        SolidityLazyAddon lazyAddon = lazyAddons.remove(name);
+        if (lazyAddon != null) {
+            lazyAddon.unregisterTriggers(loader.getCommandManager());
+            logger.info("Unregistered lazy Solidity Addon: " + name);
+        }
 
-            if (loadPlugin) {
-                Plugin plugin = getPluginManager().loadPlugin(jarFile);
+        SolidityAddon addon = loadedAddons.get(name);
+        if (addon == null) return;
+
+        for (SolidityAddon other : new ArrayList<>(loadedAddons.values())) {
+            if (SolidityAddonGraph.dependencies(other.getInfo().getDepends()).contains(name)) {
+                logger.warn("Unloading Solidity Addon " + other.getName() + " as it depends on " + name);
+                unloadAddon(other.getName());
+            }
+        }
 
-                if (plugin != null) {
-                    getPluginManager().enablePlugin(plugin);
+        try {
+            disableAddon(name);
+        } catch (Exception | LinkageError e) {
+            getLogger().error("Unable to disable Addon " + name + " due to: \n" + e);
+        }
+        if (loader.getDatabaseManager() != null) {
+            loader.getDatabaseManager().closePlayerDataStores(name);
+        }
+        loadedAddons.remove(name);
+        addonFiles.remove(name);
+        timings.remove(name);
+
+        ClassLoader classLoader = addon.getClass().getClassLoader();
+        addon.teardown();
+
+        Plugin plugin = addonPlugins.remove(name);
+        if (plugin != null && plugin.isEnabled()) {
+            getPluginManager().disablePlugin(plugin);
+        }
+
+        int listeners = 0;
+        for (RegisteredListener listener : SolidityAddonLeakDetector.findListeners(classLoader)) {
+            HandlerList.unregisterAll(listener.getListener());
+            listeners++;
+        }
+        int tasks = 0;
+        for (BukkitTask task : SolidityAddonLeakDetector.findTasks(classLoader)) {
+            task.cancel();
+            tasks++;
+        }
+        for (RegisteredServiceProvider<?> provider : SolidityAddonLeakDetector.findServices(classLoader)) {
+            Bukkit.getServicesManager().unregister(provider.getProvider());
+        }
+        int commands = loader.getCommandManager() != null ? loader.getCommandManager().unregisterCommands(classLoader) : 0;
+        int guis = loader.getGuiRouter() != null ? loader.getGuiRouter().closeGuis(classLoader) : 0;
+
+        if (classLoader instanceof SolidityAddonClassLoader) {
+            SolidityAddonClassLoader addonClassLoader = (SolidityAddonClassLoader) classLoader;
+            addonClassLoader.unregister();
+            try {
+                addonClassLoader.close();
+            } catch (IOException e) {
+                getLogger().error("Unable to close the class loader of Addon " + name + " due to: \n" + e);
+            }
+            leakDetector.watch(name, addonClassLoader);
+        }
+
+        logger.info("Unloaded Solidity Addon: " + name + " (" + listeners + " leftover listener(s), " + tasks + " leftover task(s), " + commands + " command(s), " + guis + " open GUI(s))");
+    }
+
+    /**
+     * Deploys a new or replaced addon JAR at runtime. A previously loaded version of the addon and every
+     * addon depending on it are unloaded first and loaded again afterwards. Must be called from the server thread.
+     *
+     * @param jarFile The new or replaced addon JAR.
+     */
+    public void deployAddon(@NotNull File jarFile) {
+        List<File> jarFiles = new ArrayList<>();
+        jarFiles.add(jarFile);
+
+        String previous = getAddonName(jarFile);
+        if (previous != null) {
+            for (String dependent : getDependents(previous)) {
+                File dependentFile = addonFiles.get(dependent);
+                if (dependentFile != null && !jarFiles.contains(dependentFile)) jarFiles.add(dependentFile);
+            }
+            unloadAddon(previous);
+        }
+
+        logger.info("Deploying Solidity Addon: " + jarFile.getName());
+        List<SolidityAddonCandidate> candidates = discoverAddons(jarFiles);
+        if (index != null) index.save();
+
+        SolidityAddonGraph graph = SolidityAddonGraph.build(candidates, loadedAddons.keySet());
+        graph.getRejected().forEach((name, reason) -> getLogger().error("Unable to load Addon " + name + " due to: " + reason));
+        loadGraph(graph);
+
+        for (List<SolidityAddonCandidate> layer : graph.getLayers()) {
+            for (SolidityAddonCandidate candidate : layer) {
+                String name = candidate.getData().getName();
+                if (!isLoaded(name)) continue;
+                try {
+                    enableAddon(name);
+                } catch (Exception | LinkageError e) {
+                    getLogger().error("Unable to enable Addon " + name + " due to: \n" + e);
                 }
             }
+        }
+    }
 
-            logger.info("Loaded Solidity Addon: " + name + " (" + id + ") v" + version);
+    /**
+     * Unloads the addon loaded from a removed JAR. Must be called from the server thread.
+     *
+     * @param jarFile The removed addon JAR.
+     */
+    public void undeployAddon(@NotNull File jarFile) {
+        String name = getAddonName(jarFile);
+        if (name == null) return;
+
+        logger.info("Undeploying Solidity Addon: " + jarFile.getName());
+        unloadAddon(name);
+    }
+
+    /**
+     * Starts watching the addon folder for new, replaced and removed addon JARs.
+     */
+    public void startHotDeploy() {
+        if (watcher != null) return;
+
+        long debounce = loader.getConfig().getLong("addons.hot_deploy.debounce_ms", 1500);
+        watcher = new SolidityAddonWatcher(loader, this, SolidityLoader.SOLIDITY_ADDON_FOLDER, debounce);
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            getLogger().error("Unable to watch the addon folder due to: \n" + e);
+            watcher = null;
         }
     }
 
-    public void unloadAddon(String name) {
-        if (!loadedAddons.containsKey(name)) return;
-        SolidityAddon addon = loadedAddons.remove(name);
-        if (enabledAddons.containsKey(name)) enabledAddons.remove(name);
-        if (addon != null) {
-            addon.onDisable();
+    /**
+     * Stops watching the addon folder.
+     */
+    public void stopHotDeploy() {
+        if (watcher == null) return;
+        watcher.stop();
+        watcher = null;
+    }
+
+    /**
+     * Computes the content hash of an addon JAR, using the addon index if the JAR didn't change.
+     *
+     * @param jarFile The addon JAR.
+     * @return The hex encoded SHA-256 hash of the JAR.
+     * @throws IOException if the JAR cannot be read.
+     */
+    public String getContentHash(@NotNull File jarFile) throws IOException {
+        SolidityAddonIndex.Entry entry = index != null ? index.lookup(jarFile) : null;
+        return entry != null ? entry.getHash() : SolidityAddonIndex.hash(jarFile);
+    }
+
+    /**
+     * Retrieves the name of the addon loaded from a JAR file.
+     *
+     * @param jarFile The addon JAR.
+     * @return The name of the addon, or null if no loaded addon comes from this JAR.
+     */
+    public String getAddonName(@NotNull File jarFile) {
+        for (Map.Entry<String, File> entry : addonFiles.entrySet()) {
+            if (entry.getValue().getAbsoluteFile().equals(jarFile.getAbsoluteFile())) return entry.getKey();
+        }
+        for (SolidityLazyAddon lazyAddon : lazyAddons.values()) {
+            if (lazyAddon.getCandidate().getFile().getAbsoluteFile().equals(jarFile.getAbsoluteFile())) return lazyAddon.getCandidate().getData().getName();
         }
+        return null;
+    }
+
+    /**
+     * Retrieves every loaded addon which directly or transitively depends on an addon, in load order.
+     *
+     * @param name The name of the addon.
+     * @return The names of the dependent addons.
+     */
+    public List<String> getDependents(String name) {
+        List<String> dependents = new ArrayList<>();
+        for (SolidityAddon addon : loadedAddons.values()) {
+            for (String dependency : SolidityAddonGraph.dependencies(addon.getInfo().getDepends())) {
+                if (dependency.equals(name) || dependents.contains(dependency)) {
+                    dependents.add(addon.getName());
+                    break;
+                }
+            }
+        }
+        return dependents;
     }
 
     /**
@@ -112,17 +534,161 @@ public class SolidityAddonManager {
         }
 
         File[] jarFiles = directory.listFiles((dir, name) -> name.endsWith(".jar"));
-        if (jarFiles != null) {
-            for (File jarFile : jarFiles) {
-                try {
-                    loadAddon(jarFile);
-                } catch (Exception e) {
-                    getLogger().error("Unable to load Addon due to: \n" + e);
+        if (jarFiles == null) return;
+
+        // Sort the files so the load order doesn't depend on the file system
+        Arrays.sort(jarFiles, Comparator.comparing(File::getName));
+        List<SolidityAddonCandidate> candidates = discoverAddons(Arrays.asList(jarFiles));
+        if (index != null) {
+            index.retain(Arrays.asList(jarFiles));
+            index.save();
+        }
+
+        SolidityAddonGraph graph = SolidityAddonGraph.build(candidates, loadedAddons.keySet());
+        graph.getRejected().forEach((name, reason) -> getLogger().error("Unable to load Addon " + name + " due to: " + reason));
+        loadGraph(graph);
+    }
+
+    /**
+     * Loads the addons of a dependency graph layer by layer. The addons of a layer are prepared
+     * in parallel, then loaded one after another on the server thread in the sorted order.
+     *
+     * @param graph The sorted dependency graph.
+     */
+    public void loadGraph(@NotNull SolidityAddonGraph graph) {
+        int largestLayer = 0;
+        for (List<SolidityAddonCandidate> layer : graph.getLayers()) {
+            largestLayer = Math.max(largestLayer, layer.size());
+        }
+        if (largestLayer == 0) return;
+
+        Set<String> lazy = findLazyAddons(graph);
+        ExecutorService executor = Executors.newFixedThreadPool(workerThreads(largestLayer), new SolidityThreadFactory("Solidity Preparation"));
+        try {
+            for (List<SolidityAddonCandidate> candidates : graph.getLayers()) {
+                List<SolidityAddonCandidate> layer = new ArrayList<>();
+                for (SolidityAddonCandidate candidate : candidates) {
+                    if (!lazy.contains(candidate.getData().getName()) || !registerLazyAddon(candidate)) {
+                        layer.add(candidate);
+                    }
+                }
+
+                List<Future<PreparedAddon>> futures = new ArrayList<>();
+                for (SolidityAddonCandidate candidate : layer) {
+                    futures.add(executor.submit(() -> prepareAddon(candidate)));
+                }
+
+                for (int i = 0; i < futures.size(); i++) {
+                    String fileName = layer.get(i).getFile().getName();
+                    try {
+                        PreparedAddon prepared = futures.get(i).get();
+                        logger.info("Loading Solidity Addon: " + fileName);
+                        loadAddon(prepared);
+                    } catch (ExecutionException e) {
+                        getLogger().error("Unable to load Addon " + fileName + " due to: \n" + e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception | LinkageError e) {
+                        getLogger().error("Unable to load Addon " + fileName + " due to: \n" + e);
+                    }
                 }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Determines which addons of a graph are activated lazily: addons declaring activation triggers
+     * which no eagerly loaded addon depends on.
+     *
+     * @param graph The sorted dependency graph.
+     * @return The names of the lazily activated addons.
+     */
+    private Set<String> findLazyAddons(SolidityAddonGraph graph) {
+        Set<String> lazy = new HashSet<>();
+        if (!loader.getConfig().getBoolean("addons.lazy_activation", true)) return lazy;
+
+        List<SolidityAddonCandidate> ordered = new ArrayList<>();
+        for (List<SolidityAddonCandidate> layer : graph.getLayers()) {
+            for (SolidityAddonCandidate candidate : layer) {
+                ordered.add(candidate);
+                SolidityAddonActivation activation = candidate.getData().getActivation();
+                if (activation != null && activation.hasTriggers()) lazy.add(candidate.getData().getName());
+            }
+        }
+
+        // Dependents come after their dependencies, walking backwards decides every dependent first
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            SolidityAddonData data = ordered.get(i).getData();
+            if (lazy.contains(data.getName())) continue;
+            lazy.removeAll(SolidityAddonGraph.dependencies(data.getDepends()));
+            lazy.removeAll(SolidityAddonGraph.dependencies(data.getSoftdepends()));
+        }
+        return lazy;
+    }
+
+    private boolean registerLazyAddon(SolidityAddonCandidate candidate) {
+        SolidityLazyAddon lazyAddon = new SolidityLazyAddon(candidate);
+        if (!lazyAddon.registerTriggers(this)) {
+            getLogger().warn("The addon " + candidate.getData().getName() + " has no usable activation triggers, loading it now.");
+            lazyAddon.unregisterTriggers(loader.getCommandManager());
+            return false;
+        }
+
+        lazyAddons.put(candidate.getData().getName(), lazyAddon);
+        logger.info("Registered lazy Solidity Addon: " + candidate.getData().getName() + " (activates on first use)");
+        return true;
+    }
+
+    /**
+     * Activates a lazily activated addon: its placeholders are removed, lazy dependencies are activated,
+     * then the addon is loaded and enabled. Must be called from the server thread.
+     *
+     * @param name The name of the addon.
+     * @return Whether the addon is loaded afterwards.
+     */
+    public boolean activateAddon(String name) {
+        SolidityLazyAddon lazyAddon = lazyAddons.remove(name);
+        if (lazyAddon == null) return isLoaded(name);
+
+        lazyAddon.unregisterTriggers(loader.getCommandManager());
+        SolidityAddonData data = lazyAddon.getCandidate().getData();
+        for (String dependency : SolidityAddonGraph.dependencies(data.getDepends())) {
+            activateAddon(dependency);
+        }
+        for (String dependency : SolidityAddonGraph.dependencies(data.getSoftdepends())) {
+            activateAddon(dependency);
+        }
+
+        logger.info("Activating lazy Solidity Addon: " + name);
+        try {
+            loadAddon(lazyAddon.getCandidate());
+            enableAddon(name);
+            return true;
+        } catch (Exception | LinkageError e) {
+            getLogger().error("Unable to activate Addon " + name + " due to: \n" + e);
+            return false;
         }
     }
 
+    /**
+     * Checks whether an addon is waiting for its first activation trigger.
+     *
+     * @param name The name of the addon.
+     * @return Whether the addon is registered lazily and not activated yet.
+     */
+    public boolean isLazy(String name) {
+        return lazyAddons.containsKey(name);
+    }
+
+    private int workerThreads(int tasks) {
+        int threads = loader.getConfig().getInt("addons.discovery_threads", 0);
+        if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(threads, tasks));
+    }
+
     /**
      * Automatically loads and enables all addons from the predefined addon directory.
      * This method utilizes the addon folder specified in the SolidityLoader class.
@@ -130,6 +696,35 @@ public class SolidityAddonManager {
     public void automatic() {
         loadAddonsFromDirectory(SolidityLoader.SOLIDITY_ADDON_FOLDER);
         enableAllAddons();
+        saveTimings();
+    }
+
+    /**
+     * Returns the startup timings of every loaded addon, slowest addon first.
+     *
+     * @return The sorted addon timings.
+     */
+    public List<SolidityAddonTimings> getSortedTimings() {
+        List<SolidityAddonTimings> sorted = new ArrayList<>(timings.values());
+        sorted.sort(Comparator.comparingLong(SolidityAddonTimings::getTotal).reversed());
+        return sorted;
+    }
+
+    /**
+     * Writes the startup timings of every loaded addon, slowest addon first, to {@code addon-timings.json}
+     * in the data folder of Solidity.
+     *
+     * @return The written file, or null if it couldn't be written.
+     */
+    public File saveTimings() {
+        File file = new File(loader.getDataFolder(), "addon-timings.json");
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, getSortedTimings());
+            return file;
+        } catch (IOException e) {
+            getLogger().error("Unable to save the addon timings due to: \n" + e);
+            return null;
+        }
     }
 
     /**
@@ -150,8 +745,22 @@ public class SolidityAddonManager {
     public void enableAddon(String name) {
         SolidityAddon addon = loadedAddons.get(name);
         if (addon != null) {
+            if (enabledAddons.containsKey(name)) return;
+
+            // Dependencies always have to be enabled before the addon itself
+            for (String dependency : SolidityAddonGraph.dependencies(addon.getInfo().getDepends())) {
+                enableAddon(dependency);
+            }
+            long start = System.nanoTime();
             addon.onEnable();
             enabledAddons.put(name, addon);
+
+            SolidityAddonTimings addonTimings = timings.get(name);
+            if (addonTimings != null && addonTimings.getOnEnable() == 0) {
+                addonTimings.setOnEnable(System.nanoTime() - start);
+                SolidityAddonClassLoader classLoader = getClassLoader(name);
+                if (classLoader != null) addonTimings.recordClassLoading(classLoader);
+            }
         } else {
             // Optionally log or throw an error if the addon is not found.
         }
@@ -172,24 +781,69 @@ public class SolidityAddonManager {
     }
 
     /**
-     * Enables all loaded addons, allowing them to perform their functionality.
+     * Enables all loaded addons in their dependency order, allowing them to perform their functionality.
      */
     public void enableAllAddons() {
-        for (SolidityAddon addon : this.enabledAddons.values()) {
-            this.enableAddon(addon.getInfo().getName());
+        for (String name : new ArrayList<>(this.loadedAddons.keySet())) {
+            try {
+                this.enableAddon(name);
+            } catch (Exception | LinkageError e) {
+                getLogger().error("Unable to enable Addon " + name + " due to: \n" + e);
+            }
         }
     }
 
     /**
-     * Disables all currently enabled addons, preventing them from performing any further functionality.
+     * Disables all currently enabled addons in reverse dependency order, preventing them from performing any further functionality.
      */
     public void disableAllAddons() {
-        for (SolidityAddon addon : this.enabledAddons.values()) {
-            this.disableAddon(addon.getInfo().getName());
+        List<String> names = new ArrayList<>(this.enabledAddons.keySet());
+        Collections.reverse(names);
+        for (String name : names) {
+            try {
+                this.disableAddon(name);
+            } catch (Exception | LinkageError e) {
+                getLogger().error("Unable to disable Addon " + name + " due to: \n" + e);
+            }
         }
     }
 
+    /**
+     * Retrieves the class loader of a loaded addon.
+     *
+     * @param name The name of the addon.
+     * @return The class loader of the addon, or null if the addon is not loaded.
+     */
+    public SolidityAddonClassLoader getClassLoader(String name) {
+        SolidityAddon addon = loadedAddons.get(name);
+        if (addon == null || !(addon.getClass().getClassLoader() instanceof SolidityAddonClassLoader)) return null;
+        return (SolidityAddonClassLoader) addon.getClass().getClassLoader();
+    }
+
     public boolean isLoaded(String addonName) {
         return loadedAddons.containsKey(addonName);
     }
+
+    /**
+     * A discovered addon whose class loader has been created and whose main class has been loaded,
+     * ready to be instantiated on the server thread.
+     */
+    @Getter
+    public static class PreparedAddon {
+
+        private final SolidityAddonCandidate candidate;
+        private final SolidityAddonClassLoader classLoader;
+        private final Class<?> mainClass;
+        /* Preparation timings in nanoseconds */
+        private final long classLoaderCreation;
+        private final long mainClassLoad;
+
+        PreparedAddon(SolidityAddonCandidate candidate, SolidityAddonClassLoader classLoader, Class<?> mainClass, long classLoaderCreation, long mainClassLoad) {
+            this.candidate = candidate;
+            this.classLoader = classLoader;
+            this.mainClass = mainClass;
+            this.classLoaderCreation = classLoaderCreation;
+            this.mainClassLoad = mainClassLoad;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package io.soliditycraft.solidityloader.addons;
+
+import lombok.Data;
+
+/**
+ * Startup timings of a single addon. Every duration is measured in nanoseconds.
+ */
+@Data
+public class SolidityAddonTimings {
+
+    private String name;
+    private String version;
+    /**
+     * Whether the descriptor was restored from the addon index instead of parsing the JAR.
+     */
+    private boolean indexed;
+    private long descriptorParse;
+    private long classLoaderCreation;
+    private long mainClassLoad;
+    /**
+     * Time spent on defining the addon's classes, together with the amount of classes and their size.
+     * Classes are defined during the other phases, so this time is part of them and not of {@link #getTotal()}.
+     */
+    private long classLoading;
+    private long classCount;
+    private long classBytes;
+    private long onLoad;
+    private long onEnable;
+    private long pluginLoad;
+    private long pluginEnable;
+
+    public SolidityAddonTimings() {
+    }
+
+    public SolidityAddonTimings(String name, String version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    /**
+     * Takes the class definition statistics of an addon class loader.
+     *
+     * @param classLoader The class loader of the addon.
+     */
+    public void recordClassLoading(SolidityAddonClassLoader classLoader) {
+        classLoading = classLoader.getDefinitionTime().sum();
+        classCount = classLoader.getDefinedClasses().sum();
+        classBytes = classLoader.getDefinedBytes().sum();
+    }
+
+    /**
+     * @return The total time in nanoseconds the addon took to start.
+     */
+    public long getTotal() {
+        return descriptorParse + classLoaderCreation + mainClassLoad + onLoad + onEnable + pluginLoad + pluginEnable;
+    }
+}
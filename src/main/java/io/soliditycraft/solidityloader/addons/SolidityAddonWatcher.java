@@ -0,0 +1,187 @@
+package io.soliditycraft.solidityloader.addons;
+
+import io.soliditycraft.solidityloader.SolidityLoader;
+import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.utils.SolidityThreadFactory;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Watches the addon folder and hot deploys addon JARs which were added, replaced or removed.
+ * <p>File system events are debounced: a JAR is only handled once it hasn't been written to for the
+ * configured time and can be opened as a complete archive. Only JARs whose content hash changed are
+ * loaded, reloaded or unloaded, the actual (un)loading always happens on the server thread.</p>
+ */
+public class SolidityAddonWatcher {
+
+    /**
+     * Amount of times an unreadable (partially written) JAR is checked again before it is skipped.
+     */
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final SolidityLoader loader;
+    private final SolidityAddonManager addonManager;
+    private final SolidityLogger logger;
+    private final Path folder;
+    private final long debounce;
+    private final Map<Path, String> hashes = new ConcurrentHashMap<>();
+    private final Map<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a new addon watcher.
+     *
+     * @param loader       The Solidity loader.
+     * @param addonManager The addon manager which (un)loads the addons.
+     * @param folder       The addon folder to watch.
+     * @param debounce     Milliseconds a JAR has to stay unchanged before it is deployed.
+     */
+    public SolidityAddonWatcher(SolidityLoader loader, SolidityAddonManager addonManager, File folder, long debounce) {
+        this.loader = loader;
+        this.addonManager = addonManager;
+        this.logger = addonManager.getLogger();
+        this.folder = folder.toPath();
+        this.debounce = debounce;
+    }
+
+    /**
+     * Remembers the hashes of the current addon JARs and starts watching the folder.
+     *
+     * @throws IOException if the folder cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+
+        File[] jarFiles = folder.toFile().listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jarFiles != null) {
+            for (File jarFile : jarFiles) {
+                try {
+                    hashes.put(jarFile.toPath(), addonManager.getContentHash(jarFile));
+                } catch (IOException e) {
+                    logger.warn("Unable to hash the addon " + jarFile.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new SolidityThreadFactory("Solidity Hot Deploy Scheduler"));
+        thread = new SolidityThreadFactory("Solidity Hot Deploy").newThread(this::watch);
+        thread.start();
+        logger.info("Watching " + folder + " for addon changes.");
+    }
+
+    /**
+     * Stops watching the folder, pending changes are discarded.
+     */
+    public synchronized void stop() {
+        if (thread == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // The watch service is discarded anyway
+        }
+        thread.interrupt();
+        scheduler.shutdownNow();
+        pending.clear();
+        thread = null;
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost, every known and present JAR has to be checked
+                    hashes.keySet().forEach((path) -> schedule(path, 0));
+                    File[] jarFiles = folder.toFile().listFiles((dir, name) -> name.endsWith(".jar"));
+                    if (jarFiles != null) {
+                        for (File jarFile : jarFiles) schedule(jarFile.toPath(), 0);
+                    }
+                    continue;
+                }
+
+                Path path = folder.resolve((Path) event.context());
+                if (path.getFileName().toString().endsWith(".jar")) {
+                    schedule(path, 0);
+                }
+            }
+
+            if (!key.reset()) {
+                logger.warn("The addon folder can no longer be watched, hot deploy has been stopped.");
+                return;
+            }
+        }
+    }
+
+    private void schedule(Path path, int attempt) {
+        pending.compute(path, (p, future) -> {
+            if (future != null) future.cancel(false);
+            return scheduler.schedule(() -> settle(path, attempt), debounce, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void settle(Path path, int attempt) {
+        pending.remove(path);
+        File file = path.toFile();
+
+        if (!file.exists()) {
+            if (hashes.remove(path) != null) {
+                runOnServerThread(() -> addonManager.undeployAddon(file));
+            }
+            return;
+        }
+
+        String hash;
+        try {
+            // A JAR which is still being written to isn't a readable archive yet
+            new JarFile(file).close();
+            hash = addonManager.getContentHash(file);
+        } catch (IOException e) {
+            if (attempt < MAX_ATTEMPTS) {
+                schedule(path, attempt + 1);
+            } else {
+                logger.warn("Skipping the addon " + file.getName() + " as it cannot be read: " + e.getMessage());
+            }
+            return;
+        }
+
+        String previous = hashes.put(path, hash);
+        if (hash.equals(previous)) return;
+
+        runOnServerThread(() -> addonManager.deployAddon(file));
+    }
+
+    private void runOnServerThread(@NotNull Runnable runnable) {
+        if (loader.isEnabled()) {
+            Bukkit.getScheduler().runTask(loader, runnable);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.soliditycraft.solidityloader.addons;
+
+import io.soliditycraft.solidityloader.SolidityLoader;
+import io.soliditycraft.solidityloader.commands.SolidityCommandManager;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A discovered addon waiting for one of its activation triggers.
+ * <p>Placeholder commands and event listeners are registered for every trigger. The first trigger activates
+ * the addon through {@link SolidityAddonManager#activateAddon(String)}, which removes every placeholder. An event
+ * which activated the addon is passed on to the listeners the addon registered while it was enabled.</p>
+ */
+@Getter
+public class SolidityLazyAddon implements Listener {
+
+    private final SolidityAddonCandidate candidate;
+    private final List<SolidityLazyCommand> commands = new ArrayList<>();
+    private final List<Class<? extends Event>> events = new ArrayList<>();
+
+    public SolidityLazyAddon(SolidityAddonCandidate candidate) {
+        this.candidate = candidate;
+    }
+
+    /**
+     * Registers a placeholder for every activation trigger of the addon.
+     *
+     * @param addonManager The addon manager activating the addon.
+     * @return Whether at least one trigger could be registered.
+     */
+    boolean registerTriggers(@NotNull SolidityAddonManager addonManager) {
+        SolidityLoader loader = addonManager.getLoader();
+        SolidityAddonData data = candidate.getData();
+        SolidityAddonActivation activation = data.getActivation();
+        SolidityCommandManager commandManager = loader.getCommandManager();
+
+        if (activation.getCommands() != null) {
+            for (String name : activation.getCommands()) {
+                if (commandManager.isCommandRegistered(name)) {
+                    addonManager.getLogger().warn("The activation command " + name + " of the addon " + data.getName() + " is already registered.");
+                    continue;
+                }
+                SolidityLazyCommand command = new SolidityLazyCommand(name, data, addonManager);
+                commandManager.registerCommand(command);
+                commands.add(command);
+            }
+        }
+
+        if (activation.getEvents() != null) {
+            for (String eventName : activation.getEvents()) {
+                Class<? extends Event> eventClass;
+                try {
+                    eventClass = Class.forName(eventName, false, getClass().getClassLoader()).asSubclass(Event.class);
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    addonManager.getLogger().warn("The activation event " + eventName + " of the addon " + data.getName() + " is not a Bukkit event.");
+                    continue;
+                }
+
+                try {
+                    addonManager.getPluginManager().registerEvent(eventClass, this, EventPriority.LOWEST,
+                            (listener, event) -> onTrigger(addonManager, eventClass, event), loader);
+                    events.add(eventClass);
+                } catch (IllegalArgumentException e) {
+                    addonManager.getLogger().warn("The activation event " + eventName + " of the addon " + data.getName() + " can't be listened to: " + e.getMessage());
+                }
+            }
+        }
+
+        return !commands.isEmpty() || !events.isEmpty();
+    }
+
+    /**
+     * Removes every placeholder of the addon.
+     *
+     * @param commandManager The command manager holding the placeholder commands.
+     */
+    void unregisterTriggers(@NotNull SolidityCommandManager commandManager) {
+        commandManager.getCommands().removeAll(commands);
+        commands.clear();
+        HandlerList.unregisterAll(this);
+        events.clear();
+    }
+
+    private void onTrigger(SolidityAddonManager addonManager, Class<? extends Event> eventClass, Event event) throws EventException {
+        if (!eventClass.isInstance(event)) return;
+
+        String name = candidate.getData().getName();
+        boolean activated;
+        if (Bukkit.isPrimaryThread()) {
+            activated = addonManager.activateAddon(name);
+        } else {
+            // Addons are only ever loaded on the server thread, asynchronous events wait for the activation
+            try {
+                activated = Bukkit.getScheduler().callSyncMethod(addonManager.getLoader(), () -> addonManager.activateAddon(name)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EventException(e);
+            } catch (ExecutionException e) {
+                throw new EventException(e.getCause());
+            }
+        }
+        if (!activated) return;
+
+        // The event is already being dispatched, listeners registered during the activation would miss it
+        ClassLoader classLoader = addonManager.getClassLoader(name);
+        for (RegisteredListener listener : event.getHandlers().getRegisteredListeners()) {
+            if (listener.getListener().getClass().getClassLoader() == classLoader) {
+                listener.callEvent(event);
+            }
+        }
+    }
+}
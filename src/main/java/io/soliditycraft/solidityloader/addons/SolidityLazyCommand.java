@@ -0,0 +1,86 @@
+package io.soliditycraft.solidityloader.addons;
+
+import io.soliditycraft.solidityloader.Constants;
+import io.soliditycraft.solidityloader.commands.ISolidityCMDExecutor;
+import io.soliditycraft.solidityloader.commands.SolidityCommand;
+import io.soliditycraft.solidityloader.sender.SolidityCommandSender;
+import io.soliditycraft.solidityloader.utils.SolUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * A placeholder for a {@code /solidity} subcommand of a lazily activated addon.
+ * <p>The first use activates the addon, which replaces this placeholder with its real command,
+ * the invocation is then handed over to the real command.</p>
+ */
+public class SolidityLazyCommand extends SolidityCommand {
+
+    private final String name;
+    private final SolidityAddonData addonData;
+    private final SolidityAddonManager addonManager;
+
+    public SolidityLazyCommand(String name, SolidityAddonData addonData, SolidityAddonManager addonManager) {
+        this.name = name;
+        this.addonData = addonData;
+        this.addonManager = addonManager;
+    }
+
+    @Override
+    public boolean onExecute(SolidityCommandSender sender, ISolidityCMDExecutor command, List<String> args) {
+        // Checked before activating, so the addon can't be loaded by players who can't use the command
+        if (!hasPermission(sender, getPermission())) {
+            sender.sendSolidityMessage(Constants.NO_PERMISSIONS);
+            return false;
+        }
+
+        SolidityCommand target = activate();
+        if (target == null) {
+            sender.sendSolidityMessage("&cThe Solidity Addon " + addonData.getName() + " couldn't provide this command.");
+            return false;
+        }
+
+        if (!hasPermission(sender, target.getPermission())) {
+            sender.sendSolidityMessage(Constants.NO_PERMISSIONS);
+            return false;
+        }
+
+        return target.onExecute(sender, command, args);
+    }
+
+    @Override
+    public List<String> onTabComplete(SolidityCommandSender sender, ISolidityCMDExecutor command, List<String> args) {
+        if (!hasPermission(sender, getPermission())) return SolUtils.createEmptyList();
+
+        SolidityCommand target = activate();
+        return target != null ? target.onTabComplete(sender, command, args) : SolUtils.createEmptyList();
+    }
+
+    private static boolean hasPermission(SolidityCommandSender sender, String permission) {
+        return permission == null || sender.hasSolidityPermission(permission) || sender.hasSolidityPermission("*");
+    }
+
+    private SolidityCommand activate() {
+        addonManager.activateAddon(addonData.getName());
+        return SolUtils.find(getCommands(), (v) -> v != this && !(v instanceof SolidityLazyCommand) && v.getName().equals(name));
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return The permission declared for this command in the activation of the addon descriptor.
+     */
+    @Override
+    public String getPermission() {
+        SolidityAddonActivation activation = addonData.getActivation();
+        return activation != null ? activation.getPermission(name) : null;
+    }
+
+    @Override
+    public String getDescription() {
+        return addonData.getDescription() != null ? addonData.getDescription() : "Provided by " + addonData.getName();
+    }
+}
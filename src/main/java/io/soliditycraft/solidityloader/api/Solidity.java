@@ -4,6 +4,7 @@ import io.soliditycraft.solidityloader.SolidityLoader;
 import io.soliditycraft.solidityloader.SolidityVersion;
 import io.soliditycraft.solidityloader.addons.SolidityAddonManager;
 import io.soliditycraft.solidityloader.commands.SolidityCommandManager;
+import io.soliditycraft.solidityloader.database.SolidityDatabaseManager;
 import io.soliditycraft.solidityloader.sender.SolidityCommandSender;
 import lombok.Getter;
 import org.bukkit.Bukkit;
@@ -16,6 +17,8 @@ public class Solidity {
     @Getter
     private static SolidityCommandManager commandManager;
     @Getter
+    private static SolidityDatabaseManager databaseManager;
+    @Getter
     private static SolidityCommandSender consoleCommandSender;
     @Getter
     private static String solidityVersion;
@@ -23,6 +26,7 @@ public class Solidity {
     public static void initialize(@NotNull SolidityLoader loader) {
         addonManager = loader.getAddonManager();
         commandManager = loader.getCommandManager();
+        databaseManager = loader.getDatabaseManager();
         consoleCommandSender = SolidityCommandSender.from(Bukkit.getConsoleSender());
         solidityVersion = SolidityVersion.getVersion();
     }
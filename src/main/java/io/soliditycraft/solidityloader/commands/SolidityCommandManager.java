@@ -3,11 +3,13 @@ package io.soliditycraft.solidityloader.commands;
 import io.soliditycraft.solidityloader.SolidityLoader;
 import io.soliditycraft.solidityloader.commands.cmds.BaseSolidityCommand;
 import io.soliditycraft.solidityloader.commands.cmds.SolidityAddonsCommand;
+import io.soliditycraft.solidityloader.commands.cmds.SolidityDatabaseCommand;
 import io.soliditycraft.solidityloader.commands.cmds.SolidityHelpCommand;
 import io.soliditycraft.solidityloader.commands.cmds.SolidityReloadConfigs;
 import io.soliditycraft.solidityloader.utils.SolUtils;
 import lombok.Getter;
 import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -17,12 +19,14 @@ import org.jetbrains.annotations.NotNull;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Getter
 public class SolidityCommandManager {
 
     private final ISolidityCMDExecutor baseSolidityCommand = new BaseSolidityCommand(this);
     private final List<SolidityCommand> commands = new ArrayList<>();
+    private final List<SolidityGlobalCommand> globalCommands = new ArrayList<>();
     private final SolidityLoader loader;
 
     public SolidityCommandManager(SolidityLoader loader) {
@@ -55,19 +59,67 @@ public class SolidityCommandManager {
 
         try {
             command.initialize();
-            Field commandMapField = SimplePluginManager.class.getDeclaredField("commandMap");
-            commandMapField.setAccessible(true);
-            CommandMap commandMap = (CommandMap) commandMapField.get(Bukkit.getServer().getPluginManager());
+            CommandMap commandMap = getCommandMap();
 
             commandMap.register(SolidityLoader.getInstance().getName(), command);
+            globalCommands.add(command);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Unregisters every Solidity command and global command whose class was loaded by the given class loader.
+     *
+     * @param classLoader The class loader of an addon.
+     * @return The amount of unregistered commands.
+     */
+    @SuppressWarnings("unchecked")
+    public int unregisterCommands(@NotNull ClassLoader classLoader) {
+        int before = commands.size() + globalCommands.size();
+        commands.removeIf((v) -> v.getClass().getClassLoader() == classLoader);
+
+        List<SolidityGlobalCommand> removed = SolUtils.filter(globalCommands, (v) -> v.getClass().getClassLoader() == classLoader);
+        if (!removed.isEmpty()) {
+            try {
+                CommandMap commandMap = getCommandMap();
+                Map<String, Command> knownCommands = (Map<String, Command>) findField(commandMap.getClass(), "knownCommands").get(commandMap);
+                for (SolidityGlobalCommand command : removed) {
+                    command.unregister(commandMap);
+                    knownCommands.values().removeIf((v) -> v == command);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            globalCommands.removeAll(removed);
+        }
+
+        return before - commands.size() - globalCommands.size();
+    }
+
+    private CommandMap getCommandMap() throws ReflectiveOperationException {
+        Field commandMapField = SimplePluginManager.class.getDeclaredField("commandMap");
+        commandMapField.setAccessible(true);
+        return (CommandMap) commandMapField.get(Bukkit.getServer().getPluginManager());
+    }
+
+    private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException ignored) {
+                // Check the superclass
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
     public void loadDefaultCommands() {
         this.registerCommand(new SolidityHelpCommand());
         this.registerCommand(new SolidityReloadConfigs());
         this.registerCommand(new SolidityAddonsCommand());
+        this.registerCommand(new SolidityDatabaseCommand());
     }
 }
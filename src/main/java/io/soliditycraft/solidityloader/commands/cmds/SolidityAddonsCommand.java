@@ -2,7 +2,10 @@ package io.soliditycraft.solidityloader.commands.cmds;
 
 import io.soliditycraft.solidityloader.SolidityLoader;
 import io.soliditycraft.solidityloader.addons.SolidityAddon;
+import io.soliditycraft.solidityloader.addons.SolidityAddonClassLoader;
 import io.soliditycraft.solidityloader.addons.SolidityAddonData;
+import io.soliditycraft.solidityloader.addons.SolidityAddonManager;
+import io.soliditycraft.solidityloader.addons.SolidityAddonTimings;
 import io.soliditycraft.solidityloader.commands.ISolidityCMDExecutor;
 import io.soliditycraft.solidityloader.commands.SolidityCommand;
 import io.soliditycraft.solidityloader.sender.SolidityCommandSender;
@@ -12,6 +15,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class SolidityAddonsCommand extends SolidityCommand {
@@ -48,6 +52,12 @@ public class SolidityAddonsCommand extends SolidityCommand {
             sender.sendSolidityMessage(" &e&m>&r &eVersion: &a" + data.getVersion());
             sender.sendSolidityMessage(" &e&m>&r &eDescription: &a" + (data.getDescription() != null ? data.getDescription() : "Solidity Addon"));
             sender.sendSolidityMessage(" &e&m>&r &eSpigot Plugin?: " + (data.isLoadPlugin() ? "&aYes" : "&cNo"));
+            if (data.getDepends() != null && !data.getDepends().isEmpty()) {
+                sender.sendSolidityMessage(" &e&m>&r &eDepends: &a" + String.join(", ", data.getDepends()));
+            }
+            if (data.getSoftdepends() != null && !data.getSoftdepends().isEmpty()) {
+                sender.sendSolidityMessage(" &e&m>&r &eSoft Depends: &a" + String.join(", ", data.getSoftdepends()));
+            }
             sender.sendMessage("");
             sender.sendMessage("&e&m" + " ".repeat(40));
         } else if (subcommand.equals("disable")) {
@@ -106,6 +116,19 @@ public class SolidityAddonsCommand extends SolidityCommand {
             }
 
             getLoader().getAddonManager().unloadAddon(addonName);
+        } else if (subcommand.equals("classloaders")) {
+            sendClassLoaderStatistics(sender);
+        } else if (subcommand.equals("timings")) {
+            if (!args.isEmpty() && args.get(0).equals("dump")) {
+                File file = getLoader().getAddonManager().saveTimings();
+                if (file == null) {
+                    sender.sendSolidityMessage("&cCouldn't save the addon timings!");
+                    return false;
+                }
+                sender.sendSolidityMessage("&eSaved the addon timings to &a" + file.getName());
+                return true;
+            }
+            sendTimings(sender);
         }
 
         return true;
@@ -138,14 +161,16 @@ public class SolidityAddonsCommand extends SolidityCommand {
         cmds.add("enable <addon> | Enables an addon");
         cmds.add("load <addon_file> | Loads an addon (from plugins/SolidityLoader/addons)");
         cmds.add("unload <addon> | Unloads an addon");
+        cmds.add("classloaders | Displays class lookup statistics of every addon");
+        cmds.add("timings [dump] | Displays (or saves) the startup timings of every addon");
 
         List<String> mappedCmds = SolUtils.map(cmds, (v) -> "/solidity addons " + v);
-        PaginationHelper<String> helper = new PaginationHelper<>(mappedCmds, 5);
+        PaginationHelper<String> helper = new PaginationHelper<>(mappedCmds, 10);
         int totalPages = helper.getTotalPages();
         List<String> page = helper.getPage(1);
 
         sender.sendMessage("&e&m" + " ".repeat(40));
-        sender.sendCenteredMessage("&6Addons Help: Page " + page + " of " + totalPages);
+        sender.sendCenteredMessage("&6Addons Help: Page 1 of " + totalPages);
 
         for (String p : page) {
             sender.sendSolidityMessage(p);
@@ -153,4 +178,51 @@ public class SolidityAddonsCommand extends SolidityCommand {
 
         sender.sendMessage("&e&m" + " ".repeat(40));
     }
+
+    public void sendClassLoaderStatistics(@NotNull SolidityCommandSender sender) {
+        SolidityAddonManager addonManager = getLoader().getAddonManager();
+        List<SolidityAddonClassLoader> classLoaders = new ArrayList<>();
+        for (String name : addonManager.getLoadedAddons().keySet()) {
+            SolidityAddonClassLoader classLoader = addonManager.getClassLoader(name);
+            if (classLoader != null) classLoaders.add(classLoader);
+        }
+        classLoaders.sort(Comparator.comparingLong(SolidityAddonClassLoader::getTotalLookups).reversed());
+
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Addon Class Loaders");
+        for (SolidityAddonClassLoader classLoader : classLoaders) {
+            sender.sendSolidityMessage(" &e&m>&r &a" + classLoader.getAddonName()
+                    + " &elocal: &a" + classLoader.getLocalLookups().sum()
+                    + " &eaddons: &a" + classLoader.getAddonLookups().sum()
+                    + " &eparent: &a" + classLoader.getParentLookups().sum()
+                    + " &efailed: &c" + classLoader.getFailedLookups().sum());
+
+            classLoader.getAddonLookupTargets().entrySet().stream()
+                    .max(Comparator.comparingLong(entry -> entry.getValue().sum()))
+                    .ifPresent(entry -> sender.sendSolidityMessage("     &eMost used addon: &a" + entry.getKey() + " &e(&a" + entry.getValue().sum() + "&e)"));
+        }
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    public void sendTimings(@NotNull SolidityCommandSender sender) {
+        List<SolidityAddonTimings> timings = getLoader().getAddonManager().getSortedTimings();
+
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Addon Startup Timings");
+        for (SolidityAddonTimings addonTimings : timings) {
+            sender.sendSolidityMessage(" &e&m>&r &a" + addonTimings.getName() + " &etotal: &c" + millis(addonTimings.getTotal()));
+            sender.sendSolidityMessage("     &edescriptor: &a" + millis(addonTimings.getDescriptorParse()) + (addonTimings.isIndexed() ? " &e(indexed)" : "")
+                    + " &eclass loader: &a" + millis(addonTimings.getClassLoaderCreation())
+                    + " &emain class: &a" + millis(addonTimings.getMainClassLoad()));
+            sender.sendSolidityMessage("     &eclasses: &a" + addonTimings.getClassCount() + " &e(&a" + (addonTimings.getClassBytes() / 1024) + " KiB&e) in &a" + millis(addonTimings.getClassLoading()));
+            sender.sendSolidityMessage("     &eonLoad: &a" + millis(addonTimings.getOnLoad())
+                    + " &eonEnable: &a" + millis(addonTimings.getOnEnable())
+                    + (addonTimings.getPluginLoad() > 0 ? " &eplugin: &a" + millis(addonTimings.getPluginLoad() + addonTimings.getPluginEnable()) : ""));
+        }
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000D);
+    }
 }
@@ -0,0 +1,188 @@
+package io.soliditycraft.solidityloader.commands.cmds;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.soliditycraft.solidityloader.commands.ISolidityCMDExecutor;
+import io.soliditycraft.solidityloader.commands.SolidityCommand;
+import io.soliditycraft.solidityloader.database.SolidityConnectionPool;
+import io.soliditycraft.solidityloader.database.SolidityLatencyHistogram;
+import io.soliditycraft.solidityloader.database.SolidityPlayerDataMetrics;
+import io.soliditycraft.solidityloader.database.SolidityPlayerDataStore;
+import io.soliditycraft.solidityloader.database.SolidityPoolUsage;
+import io.soliditycraft.solidityloader.database.SolidityQueryMetrics;
+import io.soliditycraft.solidityloader.database.SolidityStatementStats;
+import io.soliditycraft.solidityloader.sender.SolidityCommandSender;
+import io.soliditycraft.solidityloader.utils.PaginationHelper;
+import io.soliditycraft.solidityloader.utils.SolUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class SolidityDatabaseCommand extends SolidityCommand {
+    @Override
+    public boolean onExecute(SolidityCommandSender sender, ISolidityCMDExecutor command, @NotNull List<String> args) {
+
+        if (args.isEmpty()) {
+            sendHelpMessage(sender);
+            return false;
+        }
+
+        String subcommand = args.remove(0);
+
+        if (subcommand.equals("help")) {
+            sendHelpMessage(sender);
+        } else if (subcommand.equals("pools")) {
+            sendPoolStatistics(sender);
+        } else if (subcommand.equals("players")) {
+            sendPlayerDataStatistics(sender);
+        } else if (subcommand.equals("stats")) {
+            if (!args.isEmpty() && args.get(0).equals("dump")) {
+                File file = new File(getLoader().getDataFolder(), "database-stats.json");
+                try {
+                    SolidityQueryMetrics.getInstance().dump(file, getLoader().getDatabaseManager().getPools());
+                } catch (IOException e) {
+                    getLoader().getSlogger().error("Unable to save the database statistics due to: \n" + e);
+                    sender.sendSolidityMessage("&cCouldn't save the database statistics!");
+                    return false;
+                }
+                sender.sendSolidityMessage("&eSaved the database statistics to &a" + file.getName());
+                return true;
+            }
+            sendQueryStatistics(sender);
+        } else {
+            sendHelpMessage(sender);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(SolidityCommandSender sender, ISolidityCMDExecutor command, List<String> args) {
+        return SolUtils.createEmptyList();
+    }
+
+    @Override
+    public String getName() {
+        return "db";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Displays statistics of the databases used by addons.";
+    }
+
+    @Override
+    public String getPermission() {
+        return "database";
+    }
+
+    public void sendHelpMessage(@NotNull SolidityCommandSender sender) {
+        List<String> cmds = new ArrayList<>();
+        cmds.add("pools | Displays the shared connection pools and the borrow statistics of every addon");
+        cmds.add("players | Displays the join latency and flush statistics of every player data store");
+        cmds.add("stats [dump] | Displays (or saves) the statement latencies, pool waits and slow queries");
+
+        List<String> mappedCmds = SolUtils.map(cmds, (v) -> "/solidity db " + v);
+        PaginationHelper<String> helper = new PaginationHelper<>(mappedCmds, 10);
+        int totalPages = helper.getTotalPages();
+        List<String> page = helper.getPage(1);
+
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Database Help: Page 1 of " + totalPages);
+
+        for (String p : page) {
+            sender.sendSolidityMessage(p);
+        }
+
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    public void sendPoolStatistics(@NotNull SolidityCommandSender sender) {
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Database Connection Pools");
+        for (SolidityConnectionPool pool : getLoader().getDatabaseManager().getPools()) {
+            HikariPoolMXBean statistics = pool.getPoolStatistics();
+            sender.sendSolidityMessage(" &e&m>&r &a" + pool.getName() + " &e(&a" + pool.getReferences() + " &edatabase(s), max &a" + pool.getMaximumPoolSize() + "&e)");
+            if (statistics != null) {
+                sender.sendSolidityMessage("     &eactive: &a" + statistics.getActiveConnections()
+                        + " &eidle: &a" + statistics.getIdleConnections()
+                        + " &ewaiting: &c" + statistics.getThreadsAwaitingConnection());
+            }
+
+            List<SolidityPoolUsage> usages = new ArrayList<>(pool.getUsage().values());
+            usages.sort(Comparator.comparingLong((SolidityPoolUsage usage) -> usage.getWaitTime().sum()).reversed());
+            for (SolidityPoolUsage usage : usages) {
+                sender.sendSolidityMessage("     &a" + usage.getOwner()
+                        + " &eborrows: &a" + usage.getBorrows().sum()
+                        + " &efailed: &c" + usage.getFailures().sum()
+                        + " &ewait avg: &a" + millis(usage.getAverageWaitTime())
+                        + " &emax: &a" + millis(usage.getMaxWaitTime().get()));
+            }
+        }
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    public void sendPlayerDataStatistics(@NotNull SolidityCommandSender sender) {
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Player Data Stores");
+        for (SolidityPlayerDataStore store : getLoader().getDatabaseManager().getPlayerDataStores()) {
+            SolidityPlayerDataMetrics metrics = store.getMetrics();
+            sender.sendSolidityMessage(" &e&m>&r &a" + store.getNamespace() + " &e(&a" + store.size() + " &esession(s))");
+            sender.sendSolidityMessage("     &eloads: &a" + metrics.getLoads().sum()
+                    + " &efailed: &c" + metrics.getFailedLoads().sum()
+                    + " &ejoin avg: &a" + millis(metrics.getAverageLoadTime())
+                    + " &emax: &a" + millis(metrics.getMaxLoadTime().get()));
+            sender.sendSolidityMessage("     &eflushes: &a" + metrics.getFlushes().sum()
+                    + " &efailed: &c" + metrics.getFailedFlushes().sum()
+                    + " &ekeys last: &a" + metrics.getLastFlushedKeys().get()
+                    + " &eavg: &a" + metrics.getAverageFlushedKeys()
+                    + " &emax time: &a" + millis(metrics.getMaxFlushTime().get()));
+        }
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    public void sendQueryStatistics(@NotNull SolidityCommandSender sender) {
+        SolidityQueryMetrics metrics = SolidityQueryMetrics.getInstance();
+        List<SolidityStatementStats> statements = metrics.getSortedStatements();
+
+        sender.sendMessage("&e&m" + " ".repeat(40));
+        sender.sendCenteredMessage("&6Database Statements (by total time)");
+        for (SolidityStatementStats stats : statements.subList(0, Math.min(10, statements.size()))) {
+            SolidityLatencyHistogram latency = stats.getLatency();
+            sender.sendSolidityMessage(" &e&m>&r &a" + stats.getOwner() + "&e: &f" + abbreviate(stats.getStatement()));
+            sender.sendSolidityMessage("     &ecount: &a" + latency.getCount()
+                    + " &ep50: &a" + millis(latency.getPercentile(50))
+                    + " &ep99: &a" + millis(latency.getPercentile(99))
+                    + " &emax: &a" + millis(latency.getMax())
+                    + " &erows avg: &a" + stats.getAverageRows()
+                    + " &efailed: &c" + stats.getFailures().sum());
+        }
+
+        sender.sendCenteredMessage("&6Pool Waits");
+        for (SolidityConnectionPool pool : getLoader().getDatabaseManager().getPools()) {
+            for (SolidityPoolUsage usage : pool.getUsage().values()) {
+                SolidityLatencyHistogram waits = usage.getWaitTimes();
+                sender.sendSolidityMessage(" &e&m>&r &a" + pool.getName() + " &e/ &a" + usage.getOwner()
+                        + " &ep50: &a" + millis(waits.getPercentile(50))
+                        + " &ep99: &a" + millis(waits.getPercentile(99))
+                        + " &emax: &a" + millis(waits.getMax()));
+            }
+        }
+
+        long threshold = metrics.getSlowQueryThreshold();
+        sender.sendSolidityMessage("&eSlow queries" + (threshold > 0 ? " (>= " + threshold + "ms)" : " (disabled)") + ": &c" + metrics.getSlowQueries().size());
+        sender.sendMessage("&e&m" + " ".repeat(40));
+    }
+
+    private static String abbreviate(String statement) {
+        return statement.length() > 60 ? statement.substring(0, 57) + "..." : statement;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000D);
+    }
+}
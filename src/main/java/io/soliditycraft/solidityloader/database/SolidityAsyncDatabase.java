@@ -0,0 +1,78 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous view of a {@link SolidityDatabase}.
+ * <p>Every method runs on the database executor and returns a {@link CompletableFuture} instead of blocking the
+ * calling thread. By default the futures complete on an executor thread; a view created with
+ * {@link #onMainThread()} completes them on the server thread, so callbacks may use the Bukkit API directly.</p>
+ *
+ * <pre>
+ * database.async().onMainThread()
+ *         .query("SELECT COUNT(*) FROM players", rs -&gt; rs.next() ? rs.getInt(1) : 0)
+ *         .thenAccept(count -&gt; sender.sendMessage("Players: " + count));
+ * </pre>
+ */
+public class SolidityAsyncDatabase {
+
+    private final SolidityDatabase database;
+    private final SolidityDatabaseExecutor executor;
+    private final boolean mainThread;
+
+    SolidityAsyncDatabase(SolidityDatabase database, SolidityDatabaseExecutor executor, boolean mainThread) {
+        this.database = database;
+        this.executor = executor;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Returns a view of this database whose futures complete on the server thread.
+     *
+     * @return The main thread view.
+     */
+    public SolidityAsyncDatabase onMainThread() {
+        return mainThread ? this : new SolidityAsyncDatabase(database, executor, true);
+    }
+
+    /**
+     * Executes a SQL update statement (INSERT, UPDATE, DELETE) asynchronously. Like its synchronous counterpart the
+     * statement is recorded in the query metrics.
+     *
+     * @param sql The SQL statement to execute.
+     * @return A future completed with the amount of affected rows.
+     */
+    public CompletableFuture<Integer> executeUpdate(String sql) {
+        return complete(executor.supply(() -> database.update(sql)));
+    }
+
+    /**
+     * Executes a SQL query asynchronously and maps its result. The result set is closed after the mapper returns.
+     * <p>The query is a read, so a replicated database sends it to a replica like its synchronous queries.</p>
+     *
+     * @param sql    The SQL query to execute.
+     * @param mapper The function reading the result set.
+     * @param <T>    The type of the result.
+     * @return A future completed with the mapped result.
+     */
+    public <T> CompletableFuture<T> query(String sql, SoliditySqlFunction<ResultSet, T> mapper) {
+        return complete(executor.supply(() -> database.read(sql, mapper)));
+    }
+
+    /**
+     * Runs a function with a pooled connection asynchronously. The connection is returned to the pool afterwards.
+     *
+     * @param function The function using the connection.
+     * @param <T>      The type of the result.
+     * @return A future completed with the result of the function.
+     */
+    public <T> CompletableFuture<T> withConnection(SoliditySqlFunction<Connection, T> function) {
+        return complete(executor.supply(() -> database.withConnection(function)));
+    }
+
+    private <T> CompletableFuture<T> complete(CompletableFuture<T> future) {
+        return mainThread ? executor.onMainThread(future) : future;
+    }
+}
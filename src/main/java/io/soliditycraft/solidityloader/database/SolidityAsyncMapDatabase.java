@@ -0,0 +1,240 @@
+package io.soliditycraft.solidityloader.database;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous view of a {@link SolidityMapDatabase}.
+ * <p>Every method runs on the database executor and returns a {@link CompletableFuture} instead of blocking the
+ * calling thread. By default the futures complete on an executor thread; a view created with
+ * {@link #onMainThread()} completes them on the server thread, so callbacks may use the Bukkit API directly.</p>
+ */
+public class SolidityAsyncMapDatabase {
+
+    private final SolidityMapDatabase database;
+    private final SolidityDatabaseExecutor executor;
+    private final boolean mainThread;
+
+    SolidityAsyncMapDatabase(SolidityMapDatabase database, SolidityDatabaseExecutor executor, boolean mainThread) {
+        this.database = database;
+        this.executor = executor;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Returns a view of this database whose futures complete on the server thread.
+     *
+     * @return The main thread view.
+     */
+    public SolidityAsyncMapDatabase onMainThread() {
+        return mainThread ? this : new SolidityAsyncMapDatabase(database, executor, true);
+    }
+
+    /**
+     * Inserts a key-value pair into the database asynchronously.
+     *
+     * @param key   The key of the value to be inserted.
+     * @param value The value to be associated with the key.
+     * @return A future completed once the value is stored.
+     */
+    public CompletableFuture<Void> put(String key, String value) {
+        return supply(() -> {
+            database.put(key, value);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a String value associated with the given key asynchronously.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public CompletableFuture<String> getString(String key) {
+        return supply(() -> database.getString(key));
+    }
+
+    /**
+     * Inserts a key-value pair into the database asynchronously, storing the value in the binary form of a codec.
+     *
+     * @param key   The key of the value to be inserted.
+     * @param value The value to be associated with the key, null deletes the key.
+     * @param codec The codec encoding the value.
+     * @param <T>   The type of the value.
+     * @return A future completed once the value is stored.
+     */
+    public <T> CompletableFuture<Void> put(String key, T value, SolidityCodec<T> codec) {
+        return supply(() -> {
+            database.put(key, value, codec);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a value associated with the given key asynchronously and decodes it with a codec.
+     *
+     * @param key   The key whose associated value is to be returned.
+     * @param codec The codec the value was stored with.
+     * @param <T>   The type of the value.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public <T> CompletableFuture<T> get(String key, SolidityCodec<T> codec) {
+        return supply(() -> database.get(key, codec));
+    }
+
+    /**
+     * Retrieves the values of multiple keys asynchronously and decodes them with a codec.
+     *
+     * @param keys  The keys whose values are to be returned.
+     * @param codec The codec the values were stored with.
+     * @param <T>   The type of the values.
+     * @return A future completed with the found keys mapped to their values.
+     */
+    public <T> CompletableFuture<Map<String, T>> getMany(Collection<String> keys, SolidityCodec<T> codec) {
+        return supply(() -> database.getMany(keys, codec));
+    }
+
+    /**
+     * Inserts or updates multiple key-value pairs asynchronously, storing the values in the binary form of a codec.
+     *
+     * @param values The keys mapped to the values to be associated with them.
+     * @param codec  The codec encoding the values.
+     * @param <T>    The type of the values.
+     * @return A future completed once every value is stored.
+     */
+    public <T> CompletableFuture<Void> putAll(Map<String, T> values, SolidityCodec<T> codec) {
+        return supply(() -> {
+            database.putAll(values, codec);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves the String values of multiple keys asynchronously.
+     *
+     * @param keys The keys whose values are to be returned.
+     * @return A future completed with the found keys mapped to their values.
+     */
+    public CompletableFuture<Map<String, String>> getMany(Collection<String> keys) {
+        return supply(() -> database.getMany(keys));
+    }
+
+    /**
+     * Inserts or updates multiple key-value pairs asynchronously.
+     *
+     * @param values The keys mapped to the values to be associated with them.
+     * @return A future completed once the values are stored.
+     */
+    public CompletableFuture<Void> putAll(Map<String, String> values) {
+        return supply(() -> {
+            database.putAll(values);
+            return null;
+        });
+    }
+
+    /**
+     * Deletes multiple keys asynchronously.
+     *
+     * @param keys The keys to be deleted.
+     * @return A future completed once the keys are deleted.
+     */
+    public CompletableFuture<Void> deleteAll(Collection<String> keys) {
+        return supply(() -> {
+            database.deleteAll(keys);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a Float value associated with the given key asynchronously.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public CompletableFuture<Float> getFloat(String key) {
+        return supply(() -> database.getFloat(key));
+    }
+
+    /**
+     * Retrieves a Boolean value associated with the given key asynchronously.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public CompletableFuture<Boolean> getBoolean(String key) {
+        return supply(() -> database.getBoolean(key));
+    }
+
+    /**
+     * Retrieves a Long value associated with the given key asynchronously.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public CompletableFuture<Long> getLong(String key) {
+        return supply(() -> database.getLong(key));
+    }
+
+    /**
+     * Retrieves a Double value associated with the given key asynchronously.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return A future completed with the value, or null if no value is found.
+     */
+    public CompletableFuture<Double> getDouble(String key) {
+        return supply(() -> database.getDouble(key));
+    }
+
+    /**
+     * Checks asynchronously if the specified key exists in the database.
+     *
+     * @param key The key to check for existence.
+     * @return A future completed with true if the key exists, false otherwise.
+     */
+    public CompletableFuture<Boolean> contains(String key) {
+        return supply(() -> database.contains(key));
+    }
+
+    /**
+     * Deletes the key-value pair associated with the specified key asynchronously.
+     *
+     * @param key The key to be deleted.
+     * @return A future completed once the key is deleted.
+     */
+    public CompletableFuture<Void> delete(String key) {
+        return supply(() -> {
+            database.delete(key);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a JSONObject associated with the given key asynchronously.
+     *
+     * @param key The key whose associated JSONObject is to be returned.
+     * @return A future completed with the JSONObject, or null if no value is found.
+     */
+    public CompletableFuture<JSONObject> getObject(String key) {
+        return supply(() -> database.getObject(key));
+    }
+
+    /**
+     * Retrieves a JSONArray associated with the given key asynchronously.
+     *
+     * @param key The key whose associated JSONArray is to be returned.
+     * @return A future completed with the JSONArray, or null if no value is found.
+     */
+    public CompletableFuture<JSONArray> getArray(String key) {
+        return supply(() -> database.getArray(key));
+    }
+
+    private <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> future = executor.supply(task);
+        return mainThread ? executor.onMainThread(future) : future;
+    }
+}
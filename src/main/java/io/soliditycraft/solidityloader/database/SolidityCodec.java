@@ -0,0 +1,29 @@
+package io.soliditycraft.solidityloader.database;
+
+/**
+ * Converts values of a type from and to the bytes stored by a {@link SolidityMapDatabase}.
+ * <p>Common codecs are provided by {@link SolidityCodecs}. Codecs must be thread-safe and must not modify
+ * the arrays passed to {@link #decode(byte[])}, as they may be shared with the near cache.</p>
+ *
+ * @param <T> The type of the values.
+ */
+public interface SolidityCodec<T> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value The value, never null.
+     * @return The encoded bytes.
+     * @throws IllegalArgumentException if the value can't be encoded.
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes a value.
+     *
+     * @param data The encoded bytes.
+     * @return The value.
+     * @throws IllegalArgumentException if the bytes aren't a valid encoding.
+     */
+    T decode(byte[] data);
+}
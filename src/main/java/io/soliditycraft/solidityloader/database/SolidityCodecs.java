@@ -0,0 +1,211 @@
+package io.soliditycraft.solidityloader.database;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The codecs of common value types.
+ * <p>Numbers are stored compactly: integers as zig-zag varints (1 byte for values between -64 and 63, at most
+ * 10 bytes for a long), floating point numbers as their IEEE 754 bits. Objects are stored as JSON written by
+ * Jackson, so POJOs don't have to be converted by hand.</p>
+ */
+public final class SolidityCodecs {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Strings as UTF-8, compatible with the values written by {@link SolidityMapDatabase#put(String, String)}.
+     */
+    public static final SolidityCodec<String> STRING = new SolidityCodec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Raw bytes, copied on both ends so callers can't modify stored or cached arrays.
+     */
+    public static final SolidityCodec<byte[]> BYTES = new SolidityCodec<byte[]>() {
+        @Override
+        public byte[] encode(byte[] value) {
+            return value.clone();
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            return data.clone();
+        }
+    };
+
+    /**
+     * Longs as zig-zag varints.
+     */
+    public static final SolidityCodec<Long> VARLONG = new SolidityCodec<Long>() {
+        @Override
+        public byte[] encode(Long value) {
+            return encodeVarLong(value);
+        }
+
+        @Override
+        public Long decode(byte[] data) {
+            return decodeVarLong(data);
+        }
+    };
+
+    /**
+     * Integers as zig-zag varints.
+     */
+    public static final SolidityCodec<Integer> VARINT = new SolidityCodec<Integer>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return encodeVarLong(value);
+        }
+
+        @Override
+        public Integer decode(byte[] data) {
+            long value = decodeVarLong(data);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The varint " + value + " doesn't fit into an integer");
+            }
+            return (int) value;
+        }
+    };
+
+    /**
+     * Doubles as their 8 byte IEEE 754 bits.
+     */
+    public static final SolidityCodec<Double> DOUBLE = new SolidityCodec<Double>() {
+        @Override
+        public byte[] encode(Double value) {
+            return ByteBuffer.allocate(Double.BYTES).putDouble(value).array();
+        }
+
+        @Override
+        public Double decode(byte[] data) {
+            checkLength(data, Double.BYTES);
+            return ByteBuffer.wrap(data).getDouble();
+        }
+    };
+
+    /**
+     * Floats as their 4 byte IEEE 754 bits.
+     */
+    public static final SolidityCodec<Float> FLOAT = new SolidityCodec<Float>() {
+        @Override
+        public byte[] encode(Float value) {
+            return ByteBuffer.allocate(Float.BYTES).putFloat(value).array();
+        }
+
+        @Override
+        public Float decode(byte[] data) {
+            checkLength(data, Float.BYTES);
+            return ByteBuffer.wrap(data).getFloat();
+        }
+    };
+
+    /**
+     * Booleans as a single byte.
+     */
+    public static final SolidityCodec<Boolean> BOOLEAN = new SolidityCodec<Boolean>() {
+        @Override
+        public byte[] encode(Boolean value) {
+            return new byte[]{(byte) (value ? 1 : 0)};
+        }
+
+        @Override
+        public Boolean decode(byte[] data) {
+            checkLength(data, 1);
+            return data[0] != 0;
+        }
+    };
+
+    private SolidityCodecs() {
+    }
+
+    /**
+     * Creates a codec storing objects as JSON written by Jackson.
+     *
+     * @param type The class of the objects.
+     * @param <T>  The type of the objects.
+     * @return The codec.
+     */
+    public static <T> SolidityCodec<T> json(Class<T> type) {
+        return json(MAPPER.constructType(type));
+    }
+
+    /**
+     * Creates a codec storing objects of a generic type, e.g. {@code new TypeReference<List<String>>() {}}, as JSON
+     * written by Jackson.
+     *
+     * @param type The type of the objects.
+     * @param <T>  The type of the objects.
+     * @return The codec.
+     */
+    public static <T> SolidityCodec<T> json(TypeReference<T> type) {
+        return json(MAPPER.getTypeFactory().constructType(type));
+    }
+
+    private static <T> SolidityCodec<T> json(JavaType type) {
+        return new SolidityCodec<T>() {
+            @Override
+            public byte[] encode(T value) {
+                try {
+                    return MAPPER.writeValueAsBytes(value);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Unable to encode a " + type + " as JSON", e);
+                }
+            }
+
+            @Override
+            public T decode(byte[] data) {
+                try {
+                    return MAPPER.readValue(data, type);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Unable to decode a " + type + " from JSON", e);
+                }
+            }
+        };
+    }
+
+    private static byte[] encodeVarLong(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        byte[] buffer = new byte[10];
+        int length = 0;
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[length++] = (byte) zigZag;
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static long decodeVarLong(byte[] data) {
+        long zigZag = 0;
+        for (int i = 0; i < data.length && i < 10; i++) {
+            zigZag |= (long) (data[i] & 0x7F) << (7 * i);
+            if ((data[i] & 0x80) == 0) {
+                if (i != data.length - 1) break;
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint of " + data.length + " byte(s)");
+    }
+
+    private static void checkLength(byte[] data, int length) {
+        if (data.length != length) {
+            throw new IllegalArgumentException("Expected " + length + " byte(s) but got " + data.length);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.soliditycraft.solidityloader.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.soliditycraft.solidityloader.SolidityLoader;
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A reference counted connection pool which can be shared by every database pointing at the same JDBC URL
+ * with the same credentials. The borrow and wait statistics are recorded per owner.
+ * <p>The pool also owns the executor running the asynchronous work of the databases using it, so databases sharing
+ * a pool share its threads as well instead of each starting as many threads as the pool has connections.</p>
+ */
+@Getter
+public class SolidityConnectionPool {
+
+    private final String name;
+    private final String jdbcUrl;
+    private final String username;
+    private final HikariDataSource dataSource;
+    /**
+     * Whether the driver ignores the fetch size and has to stream results row by row instead, which is the case for
+     * MySQL without cursor fetch.
+     */
+    private final boolean rowStreaming;
+    private final Map<String, SolidityPoolUsage> usage = new ConcurrentHashMap<>();
+    /**
+     * The amount of databases using this pool, it is closed once the last one released it.
+     */
+    private int references;
+    /**
+     * The executor of the asynchronous work of every database using this pool, created on first use.
+     */
+    private SolidityDatabaseExecutor executor;
+
+    /**
+     * Creates a new connection pool.
+     *
+     * @param name     The name of the pool, used for its threads and logs.
+     * @param jdbcUrl  The JDBC URL of the database.
+     * @param username The username for the database connection.
+     * @param password The password for the database connection.
+     * @param settings The pool settings.
+     */
+    public SolidityConnectionPool(String name, String jdbcUrl, String username, String password, SolidityPoolSettings settings) {
+        this.name = name;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.rowStreaming = jdbcUrl.startsWith("jdbc:mysql:") && !settings.isCursorFetch();
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+        settings.apply(config);
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    /**
+     * Borrows a connection from the pool on behalf of an owner and records how long it waited.
+     *
+     * @param owner The owner borrowing the connection.
+     * @return A pooled connection, it has to be closed to return it to the pool.
+     * @throws SQLException if no connection could be obtained.
+     */
+    public Connection getConnection(String owner) throws SQLException {
+        SolidityPoolUsage ownerUsage = usage.computeIfAbsent(owner, SolidityPoolUsage::new);
+        long start = System.nanoTime();
+        try {
+            Connection connection = dataSource.getConnection();
+            ownerUsage.recordBorrow(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            ownerUsage.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The maximum amount of connections of this pool.
+     */
+    public int getMaximumPoolSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * @return The live statistics of the pool, or null if the pool isn't started yet.
+     */
+    public HikariPoolMXBean getPoolStatistics() {
+        return dataSource.getHikariPoolMXBean();
+    }
+
+    /**
+     * Returns the executor running the asynchronous work of the databases using this pool. It has as many threads
+     * as the pool has connections and is shut down together with the pool.
+     *
+     * @return The executor of this pool.
+     */
+    synchronized SolidityDatabaseExecutor getExecutor() {
+        if (executor == null) {
+            executor = new SolidityDatabaseExecutor(name, getMaximumPoolSize(), SolidityLoader.getInstance());
+        }
+        return executor;
+    }
+
+    /**
+     * Adds a reference to the pool, which has to be released with {@link #release()}.
+     *
+     * @return This pool.
+     */
+    synchronized SolidityConnectionPool retain() {
+        references++;
+        return this;
+    }
+
+    /**
+     * Releases a reference to the pool.
+     *
+     * @return Whether this was the last reference and the pool has been closed.
+     */
+    synchronized boolean release() {
+        if (references > 0) references--;
+        if (references > 0) return false;
+
+        close();
+        return true;
+    }
+
+    /**
+     * Closes the pool regardless of its references. Queued asynchronous work is finished first.
+     */
+    synchronized void close() {
+        if (executor != null) {
+            executor.shutdown(10000);
+            executor = null;
+        }
+        dataSource.close();
+    }
+
+    public synchronized int getReferences() {
+        return references;
+    }
+
+    public boolean isClosed() {
+        return dataSource.isClosed();
+    }
+}
@@ -1,12 +1,20 @@
 package io.soliditycraft.solidityloader.database;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A database class that provides methods for executing SQL statements using HikariCP and SQLite.
@@ -14,7 +22,34 @@ import java.sql.SQLException;
  */
 public class SolidityDatabase {
 
-    private final HikariDataSource dataSource;
+    /**
+     * The default amount of rows fetched from the database at once by {@link #query(String, SolidityRowMapper, Object...)}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    /**
+     * The default amount of attempts of a transaction failing with a deadlock or a lock wait timeout.
+     */
+    public static final int DEFAULT_TRANSACTION_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF = 25; // Milliseconds
+    private static final long MAX_BACKOFF = 1000; // Milliseconds
+
+    private final SolidityConnectionPool pool;
+    /**
+     * The owner the connections are borrowed for, usually the name of the addon using this database.
+     */
+    private final String owner;
+    /**
+     * The manager sharing the pool, null if the pool is owned by this database alone.
+     */
+    private final SolidityDatabaseManager manager;
+    /**
+     * The connection of the transaction running on the current thread.
+     */
+    private final ThreadLocal<Connection> transaction = new ThreadLocal<>();
+    private final SolidityTransactionMetrics transactionMetrics = new SolidityTransactionMetrics();
+    private final SolidityQueryMetrics queryMetrics = SolidityQueryMetrics.getInstance();
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private int transactionAttempts = DEFAULT_TRANSACTION_ATTEMPTS;
 
     /**
      * Constructs a SolidityDatabase instance with the specified database configuration.
@@ -22,15 +57,20 @@ public class SolidityDatabase {
      * @param databaseUrl The JDBC URL of the SQLite database (e.g., "jdbc:sqlite:database.db").
      */
     public SolidityDatabase(String databaseUrl, String username, String password) {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(databaseUrl);
-        config.setUsername(username);
-        config.setPassword(password);
-        config.setMaximumPoolSize(10);
-        config.setConnectionTimeout(30000); // 30 seconds
-        config.setIdleTimeout(600000); // 10 minutes
+        this(new SolidityConnectionPool("Solidity Database", databaseUrl, username, password, new SolidityPoolSettings()).retain(), SolidityDatabaseManager.findOwner(), null);
+    }
 
-        this.dataSource = new HikariDataSource(config);
+    /**
+     * Constructs a SolidityDatabase on a shared connection pool.
+     *
+     * @param pool    The connection pool, already retained for this database and released when it's closed.
+     * @param owner   The owner the connections are borrowed for.
+     * @param manager The manager sharing the pool, or null if the pool belongs to this database alone.
+     */
+    SolidityDatabase(SolidityConnectionPool pool, String owner, SolidityDatabaseManager manager) {
+        this.pool = pool;
+        this.owner = owner;
+        this.manager = manager;
     }
 
     /**
@@ -40,61 +80,532 @@ public class SolidityDatabase {
      * @throws SQLException if a database access error occurs.
      */
     public void executeUpdate(String sql) throws SQLException {
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.executeUpdate();
+        update(sql);
+    }
+
+    /**
+     * Executes a SQL update statement and records it in the query metrics.
+     *
+     * @param sql The SQL statement to execute.
+     * @return The amount of affected rows.
+     * @throws SQLException if a database access error occurs.
+     */
+    int update(String sql) throws SQLException {
+        Connection connection = acquire();
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int rows = statement.executeUpdate();
+            queryMetrics.record(owner, sql, System.nanoTime() - started, rows);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            queryMetrics.recordFailure(owner, sql, System.nanoTime() - started);
+            throw e;
+        } finally {
+            release(connection);
         }
     }
 
     /**
      * Executes a SQL query statement and returns the result as a ResultSet.
+     * <p>The whole result is copied into a disconnected {@link CachedRowSet}, the connection is returned to the
+     * pool right away.</p>
      *
      * @param sql The SQL query to execute.
      * @return A ResultSet containing the results of the query.
      * @throws SQLException if a database access error occurs.
+     * @deprecated Loads the whole result into memory, use {@link #query(String, SolidityRowMapper, Object...)} instead.
      */
+    @Deprecated
     public ResultSet executeQuery(String sql) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        PreparedStatement statement = connection.prepareStatement(sql);
-        return statement.executeQuery();
+        Connection connection = acquireRead();
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+            rowSet.populate(resultSet);
+            queryMetrics.record(owner, sql, System.nanoTime() - started, rowSet.size());
+            return rowSet;
+        } catch (SQLException | RuntimeException e) {
+            queryMetrics.recordFailure(owner, sql, System.nanoTime() - started);
+            throw e;
+        } finally {
+            releaseRead(connection);
+        }
+    }
+
+    /**
+     * Executes a parameterized SQL query and streams its rows through a row mapper.
+     * <p>Rows are fetched from the database in batches of the fetch size, so results of any size can be walked
+     * with constant memory. MySQL only honours the fetch size with the {@code database.pool.cursor_fetch} setting,
+     * otherwise the rows are streamed one by one. Inside a transaction such a stream would block every other statement
+     * of the transaction until it's closed, so there MySQL loads the whole result instead. The connection, statement and result set are released once the stream is closed
+     * or fully consumed, so the stream should be used in a try-with-resources block:</p>
+     *
+     * <pre>
+     * try (Stream&lt;String&gt; names = database.query("SELECT name FROM players WHERE coins &gt; ?", rs -&gt; rs.getString(1), 100)) {
+     *     names.forEach(System.out::println);
+     * }
+     * </pre>
+     *
+     * <p>SQL errors while reading the rows are thrown as {@link IllegalStateException} with the {@link SQLException} as cause.
+     * Inside a transaction the query runs on the connection of the transaction.</p>
+     *
+     * @param sql    The SQL query to execute, with {@code ?} placeholders.
+     * @param mapper The mapper converting each row.
+     * @param params The values of the placeholders.
+     * @param <T>    The type of the mapped rows.
+     * @return A lazily populated stream of the mapped rows.
+     * @throws SQLException if the query can't be executed.
+     */
+    public <T> Stream<T> query(String sql, SolidityRowMapper<T> mapper, Object... params) throws SQLException {
+        Connection connection = acquireRead();
+        PreparedStatement statement = null;
+        ResultSet resultSet;
+        long started = System.nanoTime();
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL only streams the rows of a result with this fetch size, it would load the whole result otherwise
+            statement.setFetchSize(pool.isRowStreaming() && connection != transaction.get() ? Integer.MIN_VALUE : fetchSize);
+            bind(statement, params);
+            resultSet = statement.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            queryMetrics.recordFailure(owner, sql, System.nanoTime() - started);
+            closeQuietly(statement);
+            releaseRead(connection);
+            throw e;
+        }
+
+        // The latency of a streamed query is the time until its first batch arrived, its rows are counted while walking it
+        long executionTime = System.nanoTime() - started;
+        RowSpliterator<T> spliterator = new RowSpliterator<>(statement, resultSet, mapper, rows -> {
+            queryMetrics.record(owner, sql, executionTime, rows);
+            releaseRead(connection);
+        });
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Executes a SQL query on a read connection and maps its result, the result set is closed after the mapper returns.
+     * Used by the asynchronous view, so its reads are routed and recorded in the query metrics like
+     * {@link #query(String, SolidityRowMapper, Object...)}.
+     *
+     * @param sql    The SQL query to execute.
+     * @param mapper The function reading the result set.
+     * @param <T>    The type of the result.
+     * @return The mapped result.
+     * @throws SQLException if a database access error occurs.
+     */
+    <T> T read(String sql, SoliditySqlFunction<ResultSet, T> mapper) throws SQLException {
+        Connection connection = acquireRead();
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            T result = mapper.apply(resultSet);
+            // The mapper walks the result set itself, the row count is only known if its cursor stopped on a row
+            queryMetrics.record(owner, sql, System.nanoTime() - started, resultSet.getRow());
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            queryMetrics.recordFailure(owner, sql, System.nanoTime() - started);
+            throw e;
+        } finally {
+            releaseRead(connection);
+        }
+    }
+
+    /**
+     * Sets the amount of rows fetched from the database at once by {@link #query(String, SolidityRowMapper, Object...)}.
+     *
+     * @param fetchSize The fetch size, at least 1.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("The fetch size must be at least 1");
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        if (params == null) return;
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    static void closeQuietly(AutoCloseable... closeables) {
+        for (AutoCloseable closeable : closeables) {
+            if (closeable == null) continue;
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool. The connection has to be closed to return it to the pool.
+     *
+     * @return A pooled connection.
+     * @throws SQLException if a database access error occurs.
+     */
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection(owner);
+    }
+
+    /**
+     * Runs a function with a pooled connection, the connection is returned to the pool afterwards.
+     *
+     * @param function The function using the connection.
+     * @param <T>      The type of the result.
+     * @return The result of the function.
+     * @throws SQLException if a database access error occurs.
+     */
+    public <T> T withConnection(SoliditySqlFunction<Connection, T> function) throws SQLException {
+        Connection connection = acquire();
+        try {
+            return function.apply(connection);
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * Runs a unit of work in a transaction on a single pooled connection.
+     * <p>The transaction is committed when the work returns and rolled back when it throws. If it fails with a
+     * deadlock or a lock wait timeout, it is rolled back and the work is run again after a jittered backoff, up to
+     * the configured amount of attempts, so the work must not have side effects outside of the database.</p>
+     * <p>While the work runs, every other method of this database called on the same thread uses the connection of
+     * the transaction. A nested call joins the running transaction and only rolls back to a savepoint on failure.</p>
+     *
+     * @param work The unit of work.
+     * @param <T>  The type of the result.
+     * @return The result of the work.
+     * @throws SQLException if the transaction failed and can't be retried.
+     */
+    public <T> T inTransaction(SoliditySqlFunction<SolidityTransaction, T> work) throws SQLException {
+        Connection bound = transaction.get();
+        if (bound != null) {
+            Savepoint savepoint = bound.setSavepoint();
+            try {
+                T result = work.apply(new SolidityTransaction(this, bound));
+                SolidityTransaction.releaseQuietly(bound, savepoint);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                // A deadlocked transaction loses its savepoints, the deadlock must reach the outer retry loop
+                try {
+                    bound.rollback(savepoint);
+                } catch (SQLException | RuntimeException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            Connection connection = pool.getConnection(owner);
+            transaction.set(connection);
+            try {
+                connection.setAutoCommit(false);
+                T result = work.apply(new SolidityTransaction(this, connection));
+                commit(connection);
+                return result;
+            } catch (SQLException e) {
+                rollbackQuietly(connection);
+                if (attempt < transactionAttempts && isRetryable(e)) {
+                    transactionMetrics.getRetries().increment();
+                    backoff(attempt, e);
+                    continue;
+                }
+                transactionMetrics.getFailures().increment();
+                throw e;
+            } catch (RuntimeException | Error e) {
+                rollbackQuietly(connection);
+                transactionMetrics.getFailures().increment();
+                throw e;
+            } finally {
+                transaction.remove();
+                end(connection);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a transaction failed because of a deadlock or a lock wait timeout and can be retried.
+     *
+     * @param exception The exception thrown by the transaction.
+     * @return Whether the transaction can be retried.
+     */
+    static boolean isRetryable(Throwable exception) {
+        for (Throwable e = exception; e != null; e = e.getCause() != e ? e.getCause() : null) {
+            if (!(e instanceof SQLException)) continue;
+            SQLException sqlException = (SQLException) e;
+            String state = sqlException.getSQLState();
+            // 40001: serialization failure / deadlock, 40P01: deadlock (PostgreSQL), 41000: lock wait timeout (MySQL XA)
+            if ("40001".equals(state) || "40P01".equals(state) || "41000".equals(state)) return true;
+            // 1213: deadlock, 1205: lock wait timeout (MySQL / MariaDB)
+            if (sqlException.getErrorCode() == 1213 || sqlException.getErrorCode() == 1205) return true;
+
+            SQLException next = sqlException.getNextException();
+            if (next != null && next != e.getCause() && isRetryable(next)) return true;
+        }
+        return false;
+    }
+
+    private void backoff(int attempt, SQLException cause) throws SQLException {
+        long ceiling = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private void commit(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        connection.commit();
+        transactionMetrics.recordCommit(System.nanoTime() - start);
+    }
+
+    private void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+        }
+        transactionMetrics.getRollbacks().increment();
+    }
+
+    private static void end(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException ignored) {
+        }
+        closeQuietly(connection);
     }
 
     /**
-     * Begins a new transaction.
+     * Returns the connection of the transaction running on the current thread, or borrows one from the pool.
+     */
+    private Connection acquire() throws SQLException {
+        Connection bound = transaction.get();
+        return bound != null ? bound : pool.getConnection(owner);
+    }
+
+    /**
+     * Returns a connection obtained by {@link #acquire()} to the pool, unless it belongs to a running transaction.
+     */
+    private void release(Connection connection) {
+        if (connection != transaction.get()) closeQuietly(connection);
+    }
+
+    /**
+     * Returns the connection for a read-only query. Replicated databases route reads to a replica here.
+     */
+    Connection acquireRead() throws SQLException {
+        return acquire();
+    }
+
+    /**
+     * Returns a connection obtained by {@link #acquireRead()}.
+     */
+    void releaseRead(Connection connection) {
+        release(connection);
+    }
+
+    /**
+     * @return Whether a transaction is running on the current thread.
+     */
+    boolean isInTransaction() {
+        return transaction.get() != null;
+    }
+
+    /**
+     * @return The owner the connections are borrowed for, usually the name of the addon using this database.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return The manager sharing the pool, null if the pool is owned by this database alone.
+     */
+    SolidityDatabaseManager getManager() {
+        return manager;
+    }
+
+    /**
+     * @return The connection pool of this database, possibly shared with other databases.
+     */
+    public SolidityConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the asynchronous view of this database. It runs on the executor of the connection pool, which is
+     * shared by every database using the pool and has as many threads as the pool has connections.
+     *
+     * @return The asynchronous view of this database.
+     */
+    public SolidityAsyncDatabase async() {
+        return new SolidityAsyncDatabase(this, getExecutor(), false);
+    }
+
+    SolidityDatabaseExecutor getExecutor() {
+        return pool.getExecutor();
+    }
+
+    /**
+     * Sets how often a transaction failing with a deadlock or a lock wait timeout is attempted.
+     *
+     * @param transactionAttempts The amount of attempts, at least 1.
+     */
+    public void setTransactionAttempts(int transactionAttempts) {
+        if (transactionAttempts < 1) throw new IllegalArgumentException("A transaction needs at least 1 attempt");
+        this.transactionAttempts = transactionAttempts;
+    }
+
+    public int getTransactionAttempts() {
+        return transactionAttempts;
+    }
+
+    /**
+     * @return The commit latency and retry metrics of the transactions of this database.
+     */
+    public SolidityTransactionMetrics getTransactionMetrics() {
+        return transactionMetrics;
+    }
+
+    /**
+     * Begins a new transaction bound to the current thread. Until it is committed or rolled back, every method
+     * of this database called on the same thread uses the connection of the transaction.
      *
      * @throws SQLException if a database access error occurs.
+     * @throws IllegalStateException if a transaction is already running on the current thread.
+     * @deprecated Use {@link #inTransaction(SoliditySqlFunction)}, which also retries on deadlocks.
      */
+    @Deprecated
     public void beginTransaction() throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.setAutoCommit(false);
+        if (transaction.get() != null) {
+            throw new IllegalStateException("A transaction is already running on this thread");
+        }
+
+        Connection connection = pool.getConnection(owner);
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+        transaction.set(connection);
     }
 
     /**
-     * Commits the current transaction.
+     * Commits the transaction bound to the current thread and returns its connection to the pool.
      *
      * @throws SQLException if a database access error occurs.
+     * @throws IllegalStateException if no transaction is running on the current thread.
+     * @deprecated Use {@link #inTransaction(SoliditySqlFunction)}, which also retries on deadlocks.
      */
+    @Deprecated
     public void commitTransaction() throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.commit();
-        connection.setAutoCommit(true);
+        Connection connection = transaction.get();
+        if (connection == null) throw new IllegalStateException("No transaction is running on this thread");
+
+        try {
+            commit(connection);
+        } catch (SQLException e) {
+            rollbackQuietly(connection);
+            transactionMetrics.getFailures().increment();
+            throw e;
+        } finally {
+            transaction.remove();
+            end(connection);
+        }
     }
 
     /**
-     * Rolls back the current transaction.
+     * Rolls back the transaction bound to the current thread and returns its connection to the pool.
      *
      * @throws SQLException if a database access error occurs.
+     * @throws IllegalStateException if no transaction is running on the current thread.
+     * @deprecated Use {@link #inTransaction(SoliditySqlFunction)}, which also retries on deadlocks.
      */
+    @Deprecated
     public void rollbackTransaction() throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.rollback();
-        connection.setAutoCommit(true);
+        Connection connection = transaction.get();
+        if (connection == null) throw new IllegalStateException("No transaction is running on this thread");
+
+        try {
+            connection.rollback();
+            transactionMetrics.getRollbacks().increment();
+        } finally {
+            transaction.remove();
+            end(connection);
+        }
     }
 
     /**
-     * Closes the database connection pool when done.
+     * Releases the database connection pool when done. Once no database uses the pool anymore, its queued
+     * asynchronous work is finished and it is closed.
      */
     public void close() {
-        dataSource.close();
+        if (manager != null) {
+            manager.releasePool(pool);
+        } else {
+            pool.release();
+        }
+    }
+
+    /**
+     * Walks a result set row by row and releases every JDBC resource once the last row was read or the stream is closed.
+     */
+    private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final SolidityRowMapper<T> mapper;
+        /**
+         * Receives the amount of read rows once the result set is closed, and returns the connection.
+         */
+        private final LongConsumer onClose;
+        private long rows;
+        private boolean closed;
+
+        RowSpliterator(PreparedStatement statement, ResultSet resultSet, SolidityRowMapper<T> mapper, LongConsumer onClose) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.mapper = mapper;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) return false;
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
+                }
+                rows++;
+                action.accept(mapper.map(resultSet));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("Unable to read the query result", e);
+            } catch (RuntimeException e) {
+                // A failing mapper ends the stream, its resources mustn't wait for a close which might never come
+                close();
+                throw e;
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            closeQuietly(resultSet, statement);
+            onClose.accept(rows);
+        }
     }
 }
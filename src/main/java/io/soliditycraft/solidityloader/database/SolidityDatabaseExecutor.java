@@ -0,0 +1,120 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.utils.SolidityThreadFactory;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded executor running database work off the server thread.
+ * <p>The executor has exactly as many threads as the connection pool has connections, so a task never waits
+ * for a connection while holding a thread. Tasks wait in a bounded queue; if the queue is full the returned
+ * future fails with a {@link RejectedExecutionException} instead of piling up work.</p>
+ */
+public class SolidityDatabaseExecutor {
+
+    /**
+     * Amount of queued tasks allowed per thread before new tasks are rejected.
+     */
+    public static final int QUEUE_CAPACITY_PER_THREAD = 256;
+
+    private final ThreadPoolExecutor executor;
+    private final Plugin plugin;
+
+    /**
+     * Creates a new database executor.
+     *
+     * @param name    The name of the executor threads.
+     * @param threads The amount of threads, usually the maximum size of the connection pool.
+     * @param plugin  The plugin used to hand results back to the server thread.
+     */
+    public SolidityDatabaseExecutor(String name, int threads, Plugin plugin) {
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(size * QUEUE_CAPACITY_PER_THREAD), new SolidityThreadFactory(name));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Runs a task on the executor.
+     *
+     * @param task The task to run.
+     * @param <T>  The type of the result.
+     * @return A future completed with the result of the task, or exceptionally with the thrown exception.
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Returns a future which completes on the server thread once the given future completes,
+     * so callbacks attached to it may use the Bukkit API.
+     *
+     * @param future The future to hand back to the server thread.
+     * @param <T>    The type of the result.
+     * @return The future completing on the server thread.
+     */
+    public <T> CompletableFuture<T> onMainThread(CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            Runnable completion = () -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    result.complete(value);
+                }
+            };
+
+            if (Bukkit.isPrimaryThread() || plugin == null || !plugin.isEnabled()) {
+                completion.run();
+            } else {
+                Bukkit.getScheduler().runTask(plugin, completion);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return The amount of tasks waiting for a free thread.
+     */
+    public int getQueuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting new tasks and waits for the queued tasks to finish.
+     *
+     * @param timeout Milliseconds to wait for the queued tasks.
+     * @return Whether every queued task finished in time.
+     */
+    public boolean shutdown(long timeout) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        return false;
+    }
+}
@@ -1,11 +1,58 @@
 package io.soliditycraft.solidityloader.database;
 
+import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.addons.SolidityAddonClassLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * A manager class for creating and managing database instances.
- * <p>This class provides methods to create instances of SolidityDatabase and SolidityMapDatabase.</p>
+ * <p>This class provides methods to create instances of SolidityDatabase and SolidityMapDatabase, the latter
+ * either on a database server or in a local file.</p>
+ * <p>Databases pointing at the same JDBC URL with the same credentials share a single connection pool, which is
+ * closed once the last of them is closed. Connections are borrowed on behalf of the addon creating the database,
+ * so the borrow and wait statistics of every addon can be reported.</p>
  */
 public class SolidityDatabaseManager {
 
+    /**
+     * The default interval in milliseconds in which local map databases force written values to disk.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL = 1000;
+    /**
+     * The default amount of ticks between the periodic flushes of player data stores.
+     */
+    public static final long DEFAULT_PLAYER_FLUSH_INTERVAL = 1200;
+
+    private final SolidityPoolSettings settings;
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    /**
+     * Shared pools by JDBC URL and credentials.
+     */
+    private final Map<String, SolidityConnectionPool> pools = new LinkedHashMap<>();
+    private int createdPools;
+    private final List<SolidityPlayerDataStore> playerDataStores = new CopyOnWriteArrayList<>();
+
+    public SolidityDatabaseManager() {
+        this(new SolidityPoolSettings());
+    }
+
+    /**
+     * Creates a new database manager.
+     *
+     * @param settings The settings of the connection pools created by this manager.
+     */
+    public SolidityDatabaseManager(SolidityPoolSettings settings) {
+        this.settings = settings;
+    }
+
     /**
      * Creates and returns a new instance of SolidityDatabase with the specified connection details.
      *
@@ -18,7 +65,49 @@ public class SolidityDatabaseManager {
      */
     public SolidityDatabase createDatabase(String ip, int port, String username, String password, String database) {
         String jdbcUrl = createJdbcUrl(ip, port, database); // Get JDBC URL
-        return new SolidityDatabase(jdbcUrl, username, password);
+        return createDatabase(jdbcUrl, username, password);
+    }
+
+    /**
+     * Creates and returns a new instance of SolidityDatabase for a JDBC URL, sharing the pool of other databases
+     * with the same URL and credentials.
+     *
+     * @param jdbcUrl  The JDBC URL of the database.
+     * @param username The username for connecting to the database.
+     * @param password The password for connecting to the database.
+     * @return A new instance of SolidityDatabase.
+     */
+    public SolidityDatabase createDatabase(String jdbcUrl, String username, String password) {
+        return new SolidityDatabase(acquirePool(jdbcUrl, username, password), findOwner(), this);
+    }
+
+    /**
+     * Creates and returns a new instance of SolidityReplicatedDatabase, sending writes to the primary and spreading
+     * reads over the replicas. Every node shares the pool of other databases with the same URL and credentials.
+     *
+     * @param primaryUrl  The JDBC URL of the primary.
+     * @param replicaUrls The JDBC URLs of the read replicas.
+     * @param username    The username for every node.
+     * @param password    The password for every node.
+     * @return A new instance of SolidityReplicatedDatabase.
+     */
+    public SolidityReplicatedDatabase createReplicatedDatabase(String primaryUrl, List<String> replicaUrls, String username, String password) {
+        List<SolidityConnectionPool> acquired = new ArrayList<>();
+        try {
+            SolidityConnectionPool primary = acquirePool(primaryUrl, username, password, settings);
+            acquired.add(primary);
+            // A replica which is down is skipped by the database, so its pool mustn't fail the creation
+            SolidityPoolSettings replicaSettings = settings.withoutInitializationCheck();
+            for (String replicaUrl : replicaUrls) {
+                acquired.add(acquirePool(replicaUrl, username, password, replicaSettings));
+            }
+            return new SolidityReplicatedDatabase(primary, acquired.subList(1, acquired.size()), findOwner(), this);
+        } catch (RuntimeException e) {
+            for (SolidityConnectionPool pool : acquired) {
+                releasePool(pool);
+            }
+            throw e;
+        }
     }
 
     /**
@@ -32,8 +121,187 @@ public class SolidityDatabaseManager {
      * @return A new instance of SolidityMapDatabase.
      */
     public SolidityMapDatabase createMapDatabase(String ip, int port, String username, String password, String database) {
-        String mapDatabaseFilePath = String.format("%s:%d/%s_map_database.json", ip, port, database);
-        return new SolidityMapDatabase(mapDatabaseFilePath, username, password);
+        String jdbcUrl = createJdbcUrl(ip, port, database);
+        return createMapDatabase(jdbcUrl, username, password);
+    }
+
+    /**
+     * Creates and returns a new instance of SolidityMapDatabase for a JDBC URL, sharing the pool of other databases
+     * with the same URL and credentials.
+     *
+     * @param jdbcUrl  The JDBC URL of the database.
+     * @param username The username for connecting to the database.
+     * @param password The password for connecting to the database.
+     * @return A new instance of SolidityMapDatabase.
+     */
+    public SolidityMapDatabase createMapDatabase(String jdbcUrl, String username, String password) {
+        return new SolidityMapDatabase(acquirePool(jdbcUrl, username, password), findOwner(), this);
+    }
+
+    /**
+     * Creates and returns a new instance of SolidityMapDatabase stored in a local file instead of a database server.
+     * Written values are forced to disk once per second.
+     *
+     * @param file The file of the local store, created if it doesn't exist.
+     * @return A new instance of SolidityMapDatabase.
+     * @throws IOException if the file can't be opened or isn't a local store.
+     * @see SolidityLogMapBackend
+     */
+    public SolidityMapDatabase createLocalMapDatabase(File file) throws IOException {
+        return createLocalMapDatabase(file, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Creates and returns a new instance of SolidityMapDatabase stored in a local file instead of a database server.
+     *
+     * @param file         The file of the local store, created if it doesn't exist.
+     * @param syncInterval The interval in milliseconds in which written values are forced to disk, 0 to force
+     *                     every write before it returns.
+     * @return A new instance of SolidityMapDatabase.
+     * @throws IOException if the file can't be opened or isn't a local store.
+     * @see SolidityLogMapBackend
+     */
+    public SolidityMapDatabase createLocalMapDatabase(File file, long syncInterval) throws IOException {
+        return new SolidityMapDatabase(new SolidityLogMapBackend(file, syncInterval));
+    }
+
+    /**
+     * Creates a store keeping the data of online players in memory, flushing changes every minute.
+     *
+     * @param database  The map database storing the player data.
+     * @param namespace The prefix of the keys of the store, e.g. the name of the addon.
+     * @return A new player data store, which has to be closed before the database is closed.
+     */
+    public SolidityPlayerDataStore createPlayerDataStore(SolidityMapDatabase database, String namespace) {
+        return createPlayerDataStore(database, namespace, DEFAULT_PLAYER_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Creates a store keeping the data of online players in memory.
+     *
+     * @param database      The map database storing the player data.
+     * @param namespace     The prefix of the keys of the store, e.g. the name of the addon.
+     * @param flushInterval Ticks between the periodic flushes of changed keys.
+     * @return A new player data store, which has to be closed before the database is closed.
+     */
+    public SolidityPlayerDataStore createPlayerDataStore(SolidityMapDatabase database, String namespace, long flushInterval) {
+        SolidityPlayerDataStore store = new SolidityPlayerDataStore(database, namespace, flushInterval, findOwner(), this);
+        playerDataStores.add(store);
+        return store;
+    }
+
+    /**
+     * Closes the player data stores created by an addon which it didn't close itself, so they stop listening and
+     * flushing once the addon is unloaded.
+     *
+     * @param owner The name of the addon.
+     * @return The amount of closed stores.
+     */
+    public int closePlayerDataStores(String owner) {
+        int closed = 0;
+        for (SolidityPlayerDataStore store : playerDataStores) {
+            if (!store.getOwner().equals(owner)) continue;
+            logger.warn("Closing the " + store.getNamespace() + " player data store which wasn't closed by " + owner);
+            store.close();
+            closed++;
+        }
+        return closed;
+    }
+
+    void unregisterPlayerDataStore(SolidityPlayerDataStore store) {
+        playerDataStores.remove(store);
+    }
+
+    /**
+     * @return Every open player data store.
+     */
+    public List<SolidityPlayerDataStore> getPlayerDataStores() {
+        return new ArrayList<>(playerDataStores);
+    }
+
+    /**
+     * Synchronously flushes the changes of every player data store. Called before the addons are disabled,
+     * while their databases are still open.
+     */
+    public void flushPlayerData() {
+        for (SolidityPlayerDataStore store : playerDataStores) {
+            try {
+                int written = store.flush();
+                if (written > 0) logger.info("Flushed " + written + " changed key(s) of the " + store.getNamespace() + " player data");
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Unable to flush the " + store.getNamespace() + " player data due to: \n" + e);
+            }
+        }
+    }
+
+    /**
+     * Returns the shared pool of a JDBC URL and credentials, creating it if necessary.
+     * The pool is retained under the lock of this manager, so it can't be closed by a concurrent release, and has
+     * to be released with {@link #releasePool(SolidityConnectionPool)}.
+     */
+    synchronized SolidityConnectionPool acquirePool(String jdbcUrl, String username, String password) {
+        return acquirePool(jdbcUrl, username, password, settings);
+    }
+
+    private synchronized SolidityConnectionPool acquirePool(String jdbcUrl, String username, String password, SolidityPoolSettings settings) {
+        String key = jdbcUrl + '\n' + username + '\n' + password;
+        SolidityConnectionPool pool = pools.get(key);
+        if (pool == null || pool.isClosed()) {
+            pool = new SolidityConnectionPool("Solidity Pool #" + (++createdPools), jdbcUrl, username, password, settings);
+            pools.put(key, pool);
+            logger.info("Created the database connection pool " + pool.getName() + " for " + jdbcUrl + " (" + settings.getMaximumPoolSize() + " connections)");
+        }
+        return pool.retain();
+    }
+
+    /**
+     * Releases a reference to a shared pool, the pool is closed once it's no longer used.
+     *
+     * @param pool The pool to release.
+     */
+    synchronized void releasePool(SolidityConnectionPool pool) {
+        if (pool.release()) {
+            pools.values().remove(pool);
+            logger.info("Closed the database connection pool " + pool.getName() + " as it's no longer used");
+        }
+    }
+
+    /**
+     * @return Every open shared connection pool.
+     */
+    public synchronized List<SolidityConnectionPool> getPools() {
+        return new ArrayList<>(pools.values());
+    }
+
+    /**
+     * Closes every shared pool, even if databases still use it.
+     */
+    public synchronized void close() {
+        for (SolidityPlayerDataStore store : playerDataStores) {
+            logger.warn("Closing the " + store.getNamespace() + " player data store which wasn't closed by its addon");
+            store.close();
+        }
+        for (SolidityConnectionPool pool : pools.values()) {
+            if (pool.getReferences() > 0) {
+                logger.warn("Closing the database connection pool " + pool.getName() + " which is still used by " + pool.getReferences() + " database(s)");
+            }
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    /**
+     * Finds the addon calling into the database API by walking the stack until a class of an addon is found.
+     *
+     * @return The name of the calling addon, or "Solidity" if no addon is on the stack.
+     */
+    static String findOwner() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                .map(frame -> frame.getDeclaringClass().getClassLoader())
+                .filter(classLoader -> classLoader instanceof SolidityAddonClassLoader)
+                .map(classLoader -> ((SolidityAddonClassLoader) classLoader).getAddonName())
+                .findFirst()
+                .orElse("Solidity"));
     }
 
     /**
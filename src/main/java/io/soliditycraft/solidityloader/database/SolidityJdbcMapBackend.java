@@ -0,0 +1,280 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.SolidityLogger;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SolidityMapBackend} storing the values in the {@code key_value_store} table of a relational database.
+ * Bulk reads and writes use {@code IN (...)} selects, multi-row upserts and deletes of up to {@link #BATCH_SIZE} rows.
+ *
+ * <p>The table is created on first use. Values are written to the binary {@code data} column; the {@code value}
+ * text column of tables created by hand is still read for rows which haven't been rewritten yet, and the
+ * {@code data} column is added to such tables.</p>
+ *
+ * <pre>
+ * CREATE TABLE IF NOT EXISTS key_value_store (
+ *     `key` VARCHAR(255) NOT NULL PRIMARY KEY,
+ *     `value` TEXT NULL,
+ *     `data` MEDIUMBLOB NULL
+ * );
+ * </pre>
+ */
+public class SolidityJdbcMapBackend implements SolidityMapBackend {
+
+    /**
+     * The maximum amount of rows read or written by a single multi-row statement.
+     */
+    public static final int BATCH_SIZE = 500;
+    /* Statements with a varying amount of placeholders are recorded under a single name */
+    private static final String GET_SQL = "SELECT `value`, `data` FROM key_value_store WHERE `key` = ?";
+    private static final String GET_MANY_SQL = "SELECT `key`, `value`, `data` FROM key_value_store WHERE `key` IN (...)";
+    private static final String UPSERT_SQL = "INSERT INTO key_value_store (`key`, `value`, `data`) VALUES (...) ON DUPLICATE KEY UPDATE";
+    private static final String DELETE_SQL = "DELETE FROM key_value_store WHERE `key` IN (...)";
+
+    @Getter
+    private final SolidityConnectionPool pool;
+    /**
+     * The owner the connections are borrowed for, usually the name of the addon using this database.
+     */
+    @Getter
+    private final String owner;
+    /**
+     * The manager sharing the pool, null if the pool is owned by this backend alone.
+     */
+    @Getter
+    private final SolidityDatabaseManager manager;
+    private final SolidityQueryMetrics metrics = SolidityQueryMetrics.getInstance();
+    private volatile boolean schemaChecked;
+
+    /**
+     * Creates a new JDBC backend.
+     *
+     * @param pool    The connection pool, already retained for this backend and released when it's closed.
+     * @param owner   The owner the connections are borrowed for.
+     * @param manager The manager sharing the pool, or null if the pool belongs to this backend alone.
+     */
+    SolidityJdbcMapBackend(SolidityConnectionPool pool, String owner, SolidityDatabaseManager manager) {
+        this.pool = pool;
+        this.owner = owner;
+        this.manager = manager;
+    }
+
+    @Override
+    public byte[] get(String key) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(GET_SQL)) {
+            long started = System.nanoTime();
+            statement.setString(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                byte[] value = resultSet.next() ? readValue(resultSet) : null;
+                metrics.record(owner, GET_SQL, System.nanoTime() - started, value != null ? 1 : 0);
+                return value;
+            } catch (SQLException | RuntimeException e) {
+                metrics.recordFailure(owner, GET_SQL, System.nanoTime() - started);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, byte[]> getMany(Collection<String> keys) throws SQLException {
+        List<String> remaining = new ArrayList<>(keys);
+        Map<String, byte[]> loaded = new HashMap<>();
+        if (remaining.isEmpty()) return loaded;
+
+        try (Connection connection = getConnection()) {
+            for (int start = 0; start < remaining.size(); start += BATCH_SIZE) {
+                List<String> chunk = remaining.subList(start, Math.min(remaining.size(), start + BATCH_SIZE));
+                StringBuilder sql = new StringBuilder("SELECT `key`, `value`, `data` FROM key_value_store WHERE `key` IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+
+                long started = System.nanoTime();
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 1, chunk.get(i));
+                    }
+                    int rows = 0;
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            loaded.put(resultSet.getString("key"), readValue(resultSet));
+                            rows++;
+                        }
+                    }
+                    metrics.record(owner, GET_MANY_SQL, System.nanoTime() - started, rows);
+                } catch (SQLException | RuntimeException e) {
+                    metrics.recordFailure(owner, GET_MANY_SQL, System.nanoTime() - started);
+                    throw e;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Writes upserts and deletions in a single transaction, using multi-row statements of up to
+     * {@link #BATCH_SIZE} rows. A single upsert or deletion is written without a transaction.
+     */
+    @Override
+    public void write(Map<String, byte[]> upserts, Collection<String> deletes) throws SQLException {
+        if (upserts.isEmpty() && deletes.isEmpty()) return;
+
+        try (Connection connection = getConnection()) {
+            if (upserts.size() + deletes.size() == 1) {
+                writeChunks(connection, upserts, deletes);
+                return;
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                writeChunks(connection, upserts, deletes);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void writeChunks(Connection connection, Map<String, byte[]> upserts, Collection<String> deletes) throws SQLException {
+        List<Map.Entry<String, byte[]>> entries = new ArrayList<>(upserts.entrySet());
+        for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+            upsertChunk(connection, entries.subList(start, Math.min(entries.size(), start + BATCH_SIZE)));
+        }
+        List<String> keys = new ArrayList<>(deletes);
+        for (int start = 0; start < keys.size(); start += BATCH_SIZE) {
+            deleteChunk(connection, keys.subList(start, Math.min(keys.size(), start + BATCH_SIZE)));
+        }
+    }
+
+    private void upsertChunk(Connection connection, List<Map.Entry<String, byte[]>> entries) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO key_value_store (`key`, `value`, `data`) VALUES ");
+        for (int i = 0; i < entries.size(); i++) {
+            sql.append(i == 0 ? "(?, NULL, ?)" : ", (?, NULL, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE `value` = NULL, `data` = VALUES(`data`)");
+
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Map.Entry<String, byte[]> entry : entries) {
+                statement.setString(index++, entry.getKey());
+                statement.setBytes(index++, entry.getValue());
+            }
+            // MySQL counts an updated row twice, the amount of written keys is recorded instead
+            statement.executeUpdate();
+            metrics.record(owner, UPSERT_SQL, System.nanoTime() - started, entries.size());
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(owner, UPSERT_SQL, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    private void deleteChunk(Connection connection, List<String> keys) throws SQLException {
+        StringBuilder sql = new StringBuilder("DELETE FROM key_value_store WHERE `key` IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < keys.size(); i++) {
+                statement.setString(i + 1, keys.get(i));
+            }
+            int rows = statement.executeUpdate();
+            metrics.record(owner, DELETE_SQL, System.nanoTime() - started, rows);
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(owner, DELETE_SQL, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the value of a row, falling back to the text column of rows written before the binary column existed.
+     */
+    private static byte[] readValue(ResultSet resultSet) throws SQLException {
+        byte[] data = resultSet.getBytes("data");
+        if (data != null) return data;
+        String value = resultSet.getString("value");
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Borrows a connection, creating or upgrading the table on first use.
+     */
+    private Connection getConnection() throws SQLException {
+        Connection connection = pool.getConnection(owner);
+        if (!schemaChecked) {
+            try {
+                checkSchema(connection);
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+
+    private synchronized void checkSchema(Connection connection) throws SQLException {
+        if (schemaChecked) return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS key_value_store ("
+                    + "`key` VARCHAR(255) NOT NULL PRIMARY KEY, "
+                    + "`value` TEXT NULL, "
+                    + "`data` MEDIUMBLOB NULL)");
+
+            // Tables created by hand only have the text column, which may not allow NULL
+            boolean hasData = false;
+            boolean valueNullable = true;
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "key_value_store", null)) {
+                while (columns.next()) {
+                    String column = columns.getString("COLUMN_NAME");
+                    if (column.equalsIgnoreCase("data")) hasData = true;
+                    if (column.equalsIgnoreCase("value")) valueNullable = columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+                }
+            }
+            if (!valueNullable) {
+                statement.executeUpdate("ALTER TABLE key_value_store MODIFY `value` TEXT NULL");
+            }
+            if (!hasData) {
+                statement.executeUpdate("ALTER TABLE key_value_store ADD COLUMN `data` MEDIUMBLOB NULL");
+                SolidityLogger.getLogger().info("Added the binary data column to the key_value_store table");
+            }
+        }
+        schemaChecked = true;
+    }
+
+    @Override
+    public int getParallelism() {
+        return pool.getMaximumPoolSize();
+    }
+
+    @Override
+    public void close() {
+        if (manager != null) {
+            manager.releasePool(pool);
+        } else {
+            pool.release();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two buckets: bucket {@code n} counts the values between
+ * {@code 2^(n-1)} and {@code 2^n - 1} nanoseconds. Percentiles are therefore reported as the upper bound
+ * of their bucket, which is precise to a factor of two.
+ */
+public class SolidityLatencyHistogram {
+
+    /**
+     * 2^39 nanoseconds are about 9 minutes, slower values are counted in the last bucket.
+     */
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return The amount of recorded values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The average of the recorded values in nanoseconds.
+     */
+    public long getMean() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : total.sum() / samples;
+    }
+
+    /**
+     * @return The largest recorded value in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile of the recorded values.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket containing the percentile in nanoseconds, capped by the largest value.
+     */
+    public long getPercentile(double percentile) {
+        long samples = count.sum();
+        if (samples == 0) return 0;
+
+        long rank = (long) Math.ceil(samples * Math.min(100, Math.max(0, percentile)) / 100D);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= Math.max(1, rank)) {
+                return Math.min((1L << bucket) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return A copy of the bucket counters, index {@code n} counting the values below {@code 2^n} nanoseconds.
+     */
+    public long[] getBuckets() {
+        long[] copy = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            copy[bucket] = buckets.get(bucket);
+        }
+        return copy;
+    }
+}
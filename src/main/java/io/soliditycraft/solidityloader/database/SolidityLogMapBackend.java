@@ -0,0 +1,559 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.utils.SolidityThreadFactory;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded {@link SolidityMapBackend} for single-node servers, storing the values in a local append-only log.
+ *
+ * <p>The log file is memory-mapped and every write appends a record, the newest record of a key wins. An in-memory
+ * hash index points at the newest record of every key, so reads are a map lookup and a copy out of the mapping.
+ * Records look like this:</p>
+ *
+ * <pre>
+ * [int crc32][int key length][int value length, -1 for deletions][key (UTF-8)][value]
+ * </pre>
+ *
+ * <p>The checksum covers everything after it. When the log is opened it is scanned up to the first record whose
+ * checksum doesn't match (a write torn by a crash), the index is rebuilt from the intact records and the torn tail
+ * is cleared. Dirty pages are forced to disk every sync interval, or on every write if the interval is 0.</p>
+ *
+ * <p>Once more than half of the log is garbage (overwritten values and deletions), the live records are copied
+ * into a new log in the background. Records appended meanwhile are copied over afterwards and the new log
+ * atomically replaces the old one.</p>
+ */
+public class SolidityLogMapBackend implements SolidityMapBackend {
+
+    private static final int MAGIC = 0x534C4F47; // "SLOG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+    /**
+     * The minimum size of the log before it's compacted.
+     */
+    private static final int COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    @Getter
+    private final File file;
+    private final File compactFile;
+    @Getter
+    private final long syncInterval;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    /**
+     * The offset of the newest record of every key.
+     */
+    private Map<String, Integer> index = new HashMap<>();
+    /**
+     * The end of the last intact record, new records are appended here.
+     */
+    private int position;
+    /**
+     * The size of the records referenced by the index, everything else in the log is garbage.
+     */
+    private long liveBytes;
+    /**
+     * The size the log has to reach before a compaction is attempted again after one failed, 0 if none failed.
+     */
+    private long compactionRetryPosition;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) a local log and recovers its index.
+     *
+     * @param file         The log file.
+     * @param syncInterval The interval in milliseconds in which written records are forced to disk, 0 to force
+     *                     every write before it returns.
+     * @throws IOException if the log can't be opened or isn't a Solidity log.
+     */
+    public SolidityLogMapBackend(File file, long syncInterval) throws IOException {
+        this.file = file;
+        this.compactFile = new File(file.getParentFile(), file.getName() + ".compact");
+        this.syncInterval = syncInterval;
+
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create the folder " + folder.getPath());
+        }
+        // A leftover of a compaction interrupted before the swap, the old log is still complete
+        Files.deleteIfExists(compactFile.toPath());
+        open();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new SolidityThreadFactory("Solidity Local Map Database"));
+        if (syncInterval > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::syncQuietly, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws SQLException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            Integer offset = index.get(key);
+            return offset != null ? readValue(buffer, offset) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, byte[]> getMany(Collection<String> keys) throws SQLException {
+        Map<String, byte[]> values = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (String key : keys) {
+                Integer offset = index.get(key);
+                if (offset != null) values.put(key, readValue(buffer, offset));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return values;
+    }
+
+    /**
+     * Appends a record for every upsert and deletion. The records become visible to readers together; after a crash
+     * the log is recovered up to the last intact record, so a batch may be recovered partially.
+     * A null value is written as a deletion.
+     */
+    @Override
+    public void write(Map<String, byte[]> upserts, Collection<String> deletes) throws SQLException {
+        if (upserts.isEmpty() && deletes.isEmpty()) return;
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (Map.Entry<String, byte[]> entry : upserts.entrySet()) {
+                append(entry.getKey(), entry.getValue());
+            }
+            for (String key : deletes) {
+                append(key, null);
+            }
+            dirty = true;
+            if (syncInterval <= 0) sync();
+            compact = needsCompaction();
+        } catch (IOException e) {
+            throw new SQLException("Unable to write to the local map database " + file.getPath(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (compact && compacting.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::compactQuietly);
+            } catch (RejectedExecutionException e) {
+                // The log is being closed
+                compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Reads never block each other and writes only hold the lock to copy into the mapping.
+     */
+    @Override
+    public int getParallelism() {
+        return Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return The amount of keys in the log.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The size of the log in bytes, including garbage.
+     */
+    public int getLogSize() {
+        lock.readLock().lock();
+        try {
+            return position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces written records to disk and closes the log. A running compaction is awaited first.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            sync();
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Unable to close the local map database " + file.getPath() + " due to: \n" + e);
+        } finally {
+            buffer = null;
+            index = new HashMap<>();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the log and rebuilds the index from its intact records.
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > MAXIMUM_CAPACITY) {
+            throw new IOException("The local map database " + file.getPath() + " is larger than 2 GiB");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+
+        if (size < HEADER_SIZE || buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(file.getPath() + " isn't a Solidity map database");
+        } else if (buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException(file.getPath() + " was written by an unsupported version (" + buffer.getInt(4) + ")");
+        }
+
+        index = new HashMap<>();
+        liveBytes = 0;
+        position = HEADER_SIZE;
+        int length;
+        while ((length = validRecordLength(buffer, position)) > 0) {
+            apply(index, buffer, position);
+            position += length;
+        }
+        for (int offset : index.values()) {
+            liveBytes += recordLength(buffer, offset);
+        }
+
+        // Clear a torn tail, so it's never mistaken for records appended later
+        boolean torn = false;
+        for (int offset = position; offset < buffer.capacity(); offset++) {
+            if (buffer.get(offset) != 0) {
+                buffer.put(offset, (byte) 0);
+                torn = true;
+            }
+        }
+        if (torn) {
+            buffer.force();
+            logger.warn("Recovered the local map database " + file.getPath() + " up to its last intact record at " + position + " bytes");
+        }
+    }
+
+    private void append(String key, byte[] valueBytes) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER_SIZE + keyBytes.length + (valueBytes != null ? valueBytes.length : 0);
+        ensureCapacity(length);
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(0);
+        record.putInt(keyBytes.length);
+        record.putInt(valueBytes != null ? valueBytes.length : -1);
+        record.put(keyBytes);
+        if (valueBytes != null) record.put(valueBytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, length - 4);
+        record.putInt(0, (int) crc.getValue());
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(position);
+        target.put(record.array());
+
+        Integer previous = valueBytes != null ? index.put(key, position) : index.remove(key);
+        if (previous != null) liveBytes -= recordLength(buffer, previous);
+        if (valueBytes != null) liveBytes += length;
+        position += length;
+    }
+
+    /**
+     * Grows the mapping by doubling it until the record fits.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if ((long) position + length <= buffer.capacity()) return;
+        if ((long) position + length > MAXIMUM_CAPACITY) {
+            throw new IOException("The local map database " + file.getPath() + " reached its maximum size of 2 GiB");
+        }
+
+        long capacity = buffer.capacity();
+        while (capacity < (long) position + length) {
+            capacity *= 2;
+        }
+        // Pages written through the old mapping are shared with the new one, only the old mapping object is dropped
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, MAXIMUM_CAPACITY));
+    }
+
+    private boolean needsCompaction() {
+        long garbage = position - HEADER_SIZE - liveBytes;
+        return position > COMPACTION_THRESHOLD && garbage > liveBytes && position >= compactionRetryPosition;
+    }
+
+    private void sync() {
+        if (!dirty || buffer == null) return;
+        buffer.force();
+        dirty = false;
+    }
+
+    private void syncQuietly() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) sync();
+        } catch (RuntimeException e) {
+            logger.error("Unable to sync the local map database " + file.getPath() + " due to: \n" + e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            // Failures like a platform refusing to replace a mapped file would repeat on every write, so the next
+            // attempt waits until the log doubled
+            long retryPosition;
+            lock.writeLock().lock();
+            try {
+                retryPosition = compactionRetryPosition = (long) position * 2;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Unable to compact the local map database " + file.getPath() + ", retrying once it reached "
+                    + (retryPosition / 1024) + " KiB due to: \n" + e);
+            try {
+                Files.deleteIfExists(compactFile.toPath());
+            } catch (IOException ignored) {
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Copies the live records into a new log. The log is append-only, so everything before the snapshot position
+     * stays untouched and is copied without holding the lock; only the records appended meanwhile are copied
+     * while writes are blocked.
+     */
+    private void compact() throws IOException {
+        MappedByteBuffer snapshot;
+        Map<String, Integer> snapshotIndex;
+        int snapshotEnd;
+        lock.readLock().lock();
+        try {
+            if (closed) return;
+            snapshot = buffer;
+            snapshotIndex = new HashMap<>(index);
+            snapshotEnd = position;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        Map<String, Integer> compactIndex = new HashMap<>();
+        try (FileChannel target = FileChannel.open(compactFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(target, header);
+
+            int compactEnd = HEADER_SIZE;
+            for (Map.Entry<String, Integer> entry : snapshotIndex.entrySet()) {
+                compactIndex.put(entry.getKey(), compactEnd);
+                compactEnd = copyRecord(snapshot, entry.getValue(), target, compactEnd);
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (closed) return;
+                for (int offset = snapshotEnd; offset < position; offset += recordLength(buffer, offset)) {
+                    if (isDeletion(buffer, offset)) {
+                        // Deletions of keys which aren't in the new log are dropped
+                        if (compactIndex.remove(readKey(buffer, offset)) == null) continue;
+                    } else {
+                        compactIndex.put(readKey(buffer, offset), compactEnd);
+                    }
+                    compactEnd = copyRecord(buffer, offset, target, compactEnd);
+                }
+                target.force(true);
+                target.close();
+
+                int before = position;
+                sync();
+
+                // The new log is mapped before the swap, so the old log stays in use if mapping or moving fails
+                FileChannel compactChannel = FileChannel.open(compactFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer compactBuffer;
+                try {
+                    compactBuffer = compactChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(compactEnd, INITIAL_CAPACITY));
+                    Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    try {
+                        compactChannel.close();
+                    } catch (IOException closeFailure) {
+                        e.addSuppressed(closeFailure);
+                    }
+                    throw e;
+                }
+                syncDirectory();
+
+                FileChannel previous = channel;
+                channel = compactChannel;
+                buffer = compactBuffer;
+                index = compactIndex;
+                position = compactEnd;
+                compactionRetryPosition = 0;
+                // Superseded records and deletions copied while catching up are garbage as well
+                liveBytes = 0;
+                for (int offset : compactIndex.values()) {
+                    liveBytes += recordLength(compactBuffer, offset);
+                }
+                try {
+                    previous.close();
+                } catch (IOException e) {
+                    logger.warn("Unable to close the replaced log of the local map database " + file.getPath() + " due to: \n" + e);
+                }
+                logger.info("Compacted the local map database " + file.getPath() + " from " + (before / 1024) + " KiB to "
+                        + (compactEnd / 1024) + " KiB in " + ((System.nanoTime() - started) / 1_000_000) + "ms");
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Forces the folder of the log to disk, so the rename of a compaction survives a crash. Not every platform
+     * supports opening a folder, in which case the rename is only as durable as the file system makes it.
+     */
+    private void syncDirectory() {
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder == null) return;
+        try (FileChannel directory = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            logger.debug("Unable to sync the folder of the local map database " + file.getPath() + " due to: \n" + e);
+        }
+    }
+
+    private static int copyRecord(ByteBuffer source, int offset, FileChannel target, int targetPosition) throws IOException {
+        int length = recordLength(source, offset);
+        ByteBuffer record = source.duplicate();
+        record.limit(offset + length).position(offset);
+        writeFully(target, record);
+        return targetPosition + length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * Applies the record at an offset to an index.
+     */
+    private static void apply(Map<String, Integer> index, ByteBuffer buffer, int offset) {
+        if (isDeletion(buffer, offset)) {
+            index.remove(readKey(buffer, offset));
+        } else {
+            index.put(readKey(buffer, offset), offset);
+        }
+    }
+
+    /**
+     * Checks the bounds and the checksum of the record at an offset.
+     *
+     * @return The length of the record, or -1 if no intact record starts there.
+     */
+    private static int validRecordLength(ByteBuffer buffer, int offset) {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity()) return -1;
+        int keyLength = buffer.getInt(offset + 4);
+        int valueLength = buffer.getInt(offset + 8);
+        if (keyLength < 0 || valueLength < -1) return -1;
+
+        long length = (long) RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        if (offset + length > buffer.capacity()) return -1;
+
+        ByteBuffer record = buffer.duplicate();
+        record.limit((int) (offset + length)).position(offset + 4);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue() == buffer.getInt(offset) ? (int) length : -1;
+    }
+
+    private static int recordLength(ByteBuffer buffer, int offset) {
+        return RECORD_HEADER_SIZE + buffer.getInt(offset + 4) + Math.max(buffer.getInt(offset + 8), 0);
+    }
+
+    private static boolean isDeletion(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + 8) < 0;
+    }
+
+    private static String readKey(ByteBuffer buffer, int offset) {
+        return new String(readBytes(buffer, offset + RECORD_HEADER_SIZE, buffer.getInt(offset + 4)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readValue(ByteBuffer buffer, int offset) {
+        int valueLength = buffer.getInt(offset + 8);
+        if (valueLength < 0) return null;
+        return readBytes(buffer, offset + RECORD_HEADER_SIZE + buffer.getInt(offset + 4), valueLength);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return bytes;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) throw new SQLException("The local map database " + file.getPath() + " is closed");
+    }
+}
@@ -0,0 +1,51 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The storage behind a {@link SolidityMapDatabase}.
+ * <p>Backends only store bytes by key, values are encoded by a {@link SolidityCodec}; caching, write-behind buffering and the typed getters are handled by the
+ * map database on top of them. Every method must be thread-safe. Errors of backends which aren't backed by JDBC are
+ * reported as {@link SQLException} as well, so the map database API stays the same for every backend.</p>
+ */
+public interface SolidityMapBackend {
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key doesn't exist.
+     * @throws SQLException if the value can't be read.
+     */
+    byte[] get(String key) throws SQLException;
+
+    /**
+     * Retrieves the values of multiple keys.
+     *
+     * @param keys The keys, without duplicates.
+     * @return The found keys mapped to their values, missing keys are left out.
+     * @throws SQLException if the values can't be read.
+     */
+    Map<String, byte[]> getMany(Collection<String> keys) throws SQLException;
+
+    /**
+     * Writes upserts and deletions atomically where the backend supports it.
+     *
+     * @param upserts The keys mapped to their new value.
+     * @param deletes The keys to delete.
+     * @throws SQLException if the writes can't be stored.
+     */
+    void write(Map<String, byte[]> upserts, Collection<String> deletes) throws SQLException;
+
+    /**
+     * @return The amount of operations the backend can usefully run at the same time, used to size the async executor.
+     */
+    int getParallelism();
+
+    /**
+     * Releases every resource of the backend.
+     */
+    void close();
+}
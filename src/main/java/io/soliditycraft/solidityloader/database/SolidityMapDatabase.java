@@ -1,33 +1,44 @@
 package io.soliditycraft.solidityloader.database;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import io.soliditycraft.solidityloader.SolidityLoader;
+import io.soliditycraft.solidityloader.SolidityLogger;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A key-value database class that provides CRUD operations using HikariCP for connection pooling.
  *
- * <p>This class allows you to store, retrieve, update, and delete key-value pairs in a relational database.</p>
+ * <p>This class allows you to store, retrieve, update, and delete key-value pairs in a relational database.
+ * The values are stored by a {@link SolidityMapBackend}; besides the relational database an embedded local store
+ * ({@link SolidityLogMapBackend}) can be used for single-node servers.</p>
  *
- * <p>Ensure that the database is initialized and the necessary table is created before using this class.
- * The table structure should be similar to the following:</p>
+ * <p>Values are stored as bytes. {@link #put(String, String)} stores text, which the typed getters such as
+ * {@link #getLong(String)} parse on every read; {@link #put(String, Object, SolidityCodec)} and
+ * {@link #get(String, SolidityCodec)} store typed values in a compact binary form instead, see {@link SolidityCodecs}.</p>
  *
- * <pre>
- * CREATE TABLE IF NOT EXISTS key_value_store (
- *     `key` VARCHAR(255) PRIMARY KEY,
- *     `value` TEXT
- * );
- * </pre>
+ * <p>When using a relational database, the {@code key_value_store} table is created (or upgraded) on first use,
+ * see {@link SolidityJdbcMapBackend}.</p>
  */
 public class SolidityMapDatabase {
 
-    private final HikariDataSource dataSource;
+    /**
+     * The maximum amount of rows written by a single multi-row statement.
+     */
+    static final int BATCH_SIZE = SolidityJdbcMapBackend.BATCH_SIZE;
+
+    private final SolidityMapBackend backend;
+    private SolidityDatabaseExecutor executor;
+    private volatile SolidityWriteBehindBuffer writeBehind;
+    private volatile SolidityNearCache cache;
 
     /**
      * Constructs a SolidityMapDatabase instance with the specified database configuration.
@@ -37,15 +48,27 @@ public class SolidityMapDatabase {
      * @param password The password for the database connection.
      */
     public SolidityMapDatabase(String jdbcUrl, String username, String password) {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(jdbcUrl);
-        config.setUsername(username);
-        config.setPassword(password);
-        config.setMaximumPoolSize(10);
-        config.setConnectionTimeout(30000); // 30 seconds
-        config.setIdleTimeout(600000); // 10 minutes
+        this(new SolidityConnectionPool("Solidity Map Database", jdbcUrl, username, password, new SolidityPoolSettings()).retain(), SolidityDatabaseManager.findOwner(), null);
+    }
 
-        this.dataSource = new HikariDataSource(config);
+    /**
+     * Constructs a SolidityMapDatabase on a shared connection pool.
+     *
+     * @param pool    The connection pool, already retained for this database and released when it's closed.
+     * @param owner   The owner the connections are borrowed for.
+     * @param manager The manager sharing the pool, or null if the pool belongs to this database alone.
+     */
+    SolidityMapDatabase(SolidityConnectionPool pool, String owner, SolidityDatabaseManager manager) {
+        this(new SolidityJdbcMapBackend(pool, owner, manager));
+    }
+
+    /**
+     * Constructs a SolidityMapDatabase on a custom backend.
+     *
+     * @param backend The backend storing the values, closed together with this database.
+     */
+    public SolidityMapDatabase(SolidityMapBackend backend) {
+        this.backend = backend;
     }
 
     /**
@@ -56,13 +79,36 @@ public class SolidityMapDatabase {
      * @throws SQLException if a database access error occurs.
      */
     public void put(String key, String value) throws SQLException {
-        String sql = "INSERT INTO key_value_store (`key`, `value`) VALUES (?, ?) ON DUPLICATE KEY UPDATE `value` = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, key);
-            statement.setString(2, value);
-            statement.setString(3, value);
-            statement.executeUpdate();
+        put(key, value, SolidityCodecs.STRING);
+    }
+
+    /**
+     * Inserts a key-value pair into the database, storing the value in the binary form of a codec.
+     *
+     * @param key   The key of the value to be inserted.
+     * @param value The value to be associated with the key, null deletes the key.
+     * @param codec The codec encoding the value, e.g. {@link SolidityCodecs#VARLONG}.
+     * @param <T>   The type of the value.
+     * @throws SQLException if a database access error occurs.
+     */
+    public <T> void put(String key, T value, SolidityCodec<T> codec) throws SQLException {
+        if (value == null) {
+            delete(key);
+            return;
+        }
+
+        byte[] data = codec.encode(value);
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            buffer.put(key, data);
+            invalidate(key);
+            return;
+        }
+
+        try {
+            backend.write(Collections.singletonMap(key, data), Collections.emptyList());
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -74,12 +120,157 @@ public class SolidityMapDatabase {
      * @throws SQLException if a database access error occurs.
      */
     public String getString(String key) throws SQLException {
-        String sql = "SELECT `value` FROM key_value_store WHERE `key` = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, key);
-            ResultSet resultSet = statement.executeQuery();
-            return resultSet.next() ? resultSet.getString("value") : null;
+        return get(key, SolidityCodecs.STRING);
+    }
+
+    /**
+     * Retrieves a value associated with the given key and decodes it with a codec.
+     *
+     * @param key   The key whose associated value is to be returned.
+     * @param codec The codec the value was stored with.
+     * @param <T>   The type of the value.
+     * @return The value associated with the specified key, or null if no value is found.
+     * @throws SQLException if a database access error occurs.
+     */
+    public <T> T get(String key, SolidityCodec<T> codec) throws SQLException {
+        byte[] data = getBytes(key);
+        return data != null ? codec.decode(data) : null;
+    }
+
+    private byte[] getBytes(String key) throws SQLException {
+        // The stamp is taken before the pending writes are checked: a write buffered (and flushed) after the check
+        // invalidates the key, so the value loaded below isn't cached in place of the newer one
+        SolidityNearCache nearCache = cache;
+        long stamp = nearCache != null ? nearCache.stamp() : 0;
+
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        SolidityWriteBehindBuffer.Write write = buffer != null ? buffer.get(key) : null;
+        if (write != null) return write.getValue();
+
+        if (nearCache != null) {
+            SolidityNearCache.CachedValue entry = nearCache.get(key);
+            if (entry != null) return entry.getValue();
+        }
+
+        byte[] data = backend.get(key);
+        if (nearCache != null) nearCache.put(key, data, stamp);
+        return data;
+    }
+
+    /**
+     * Retrieves the String values of multiple keys in a single backend lookup, e.g. {@code IN (...)} selects of up
+     * to {@link #BATCH_SIZE} keys on a single connection; pending writes and the near cache are consulted first.
+     *
+     * @param keys The keys whose values are to be returned.
+     * @return The found keys mapped to their values, missing keys are left out.
+     * @throws SQLException if a database access error occurs.
+     */
+    public Map<String, String> getMany(Collection<String> keys) throws SQLException {
+        return getMany(keys, SolidityCodecs.STRING);
+    }
+
+    /**
+     * Retrieves the values of multiple keys like {@link #getMany(Collection)} and decodes them with a codec.
+     *
+     * @param keys  The keys whose values are to be returned.
+     * @param codec The codec the values were stored with.
+     * @param <T>   The type of the values.
+     * @return The found keys mapped to their values, missing keys are left out.
+     * @throws SQLException if a database access error occurs.
+     */
+    public <T> Map<String, T> getMany(Collection<String> keys, SolidityCodec<T> codec) throws SQLException {
+        Map<String, T> values = new LinkedHashMap<>();
+        List<String> remaining = new ArrayList<>();
+        SolidityNearCache nearCache = cache;
+        // Taken before the pending writes are checked, see getBytes
+        long stamp = nearCache != null ? nearCache.stamp() : 0;
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        for (String key : new LinkedHashSet<>(keys)) {
+            SolidityWriteBehindBuffer.Write write = buffer != null ? buffer.get(key) : null;
+            if (write != null) {
+                if (!write.isDeletion()) values.put(key, codec.decode(write.getValue()));
+                continue;
+            }
+
+            SolidityNearCache.CachedValue entry = nearCache != null ? nearCache.get(key) : null;
+            if (entry != null) {
+                if (entry.getValue() != null) values.put(key, codec.decode(entry.getValue()));
+                continue;
+            }
+            remaining.add(key);
+        }
+        if (remaining.isEmpty()) return values;
+
+        Map<String, byte[]> loaded = backend.getMany(remaining);
+        for (String key : remaining) {
+            byte[] data = loaded.get(key);
+            if (data != null) values.put(key, codec.decode(data));
+            if (nearCache != null) nearCache.put(key, data, stamp);
+        }
+        return values;
+    }
+
+    /**
+     * Inserts or updates multiple key-value pairs in a single transaction, using multi-row upserts of up to
+     * {@link #BATCH_SIZE} rows. In the write-behind mode the pairs are only buffered.
+     *
+     * @param values The keys mapped to the values to be associated with them.
+     * @throws SQLException if a database access error occurs, nothing is written then.
+     */
+    public void putAll(Map<String, String> values) throws SQLException {
+        putAll(values, SolidityCodecs.STRING);
+    }
+
+    /**
+     * Inserts or updates multiple key-value pairs like {@link #putAll(Map)}, storing the values in the binary form
+     * of a codec.
+     *
+     * @param values The keys mapped to the values to be associated with them.
+     * @param codec  The codec encoding the values.
+     * @param <T>    The type of the values.
+     * @throws SQLException if a database access error occurs, nothing is written then.
+     */
+    public <T> void putAll(Map<String, T> values, SolidityCodec<T> codec) throws SQLException {
+        Map<String, byte[]> encoded = new LinkedHashMap<>();
+        List<String> deletes = new ArrayList<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                encoded.put(key, codec.encode(value));
+            } else {
+                deletes.add(key);
+            }
+        });
+
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        try {
+            if (buffer != null) {
+                encoded.forEach(buffer::put);
+                deletes.forEach(buffer::delete);
+            } else {
+                write(encoded, deletes);
+            }
+        } finally {
+            values.keySet().forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * Deletes multiple keys in a single transaction, using {@code DELETE ... IN (...)} statements of up to
+     * {@link #BATCH_SIZE} keys. In the write-behind mode the deletions are only buffered.
+     *
+     * @param keys The keys to be deleted.
+     * @throws SQLException if a database access error occurs, nothing is deleted then.
+     */
+    public void deleteAll(Collection<String> keys) throws SQLException {
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        try {
+            if (buffer != null) {
+                keys.forEach(buffer::delete);
+            } else {
+                write(Collections.emptyMap(), new LinkedHashSet<>(keys));
+            }
+        } finally {
+            keys.forEach(this::invalidate);
         }
     }
 
@@ -139,7 +330,7 @@ public class SolidityMapDatabase {
      * @throws SQLException if a database access error occurs.
      */
     public boolean contains(String key) throws SQLException {
-        return getString(key) != null;
+        return getBytes(key) != null;
     }
 
     /**
@@ -149,11 +340,17 @@ public class SolidityMapDatabase {
      * @throws SQLException if a database access error occurs.
      */
     public void delete(String key) throws SQLException {
-        String sql = "DELETE FROM key_value_store WHERE `key` = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, key);
-            statement.executeUpdate();
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            buffer.delete(key);
+            invalidate(key);
+            return;
+        }
+
+        try {
+            backend.write(Collections.emptyMap(), Collections.singletonList(key));
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -182,9 +379,127 @@ public class SolidityMapDatabase {
     }
 
     /**
-     * Closes the database connection pool when done.
+     * Enables the near cache: values read by {@link #getString(String)} and every typed getter are cached in memory.
+     * The least recently used keys are evicted when the cache is full and values expire after the time to live.
+     * {@link #put(String, String)} and {@link #delete(String)} invalidate the cached value of their key.
+     * <p>Writes made by other servers to the same table are only seen after the cached value expired.</p>
+     *
+     * @param maxEntries  The maximum amount of cached keys.
+     * @param ttl         Milliseconds a cached value stays valid.
+     * @param cacheMisses Whether missing keys are cached too.
+     * @throws IllegalStateException if the near cache is already enabled.
+     */
+    public synchronized void enableCache(int maxEntries, long ttl, boolean cacheMisses) {
+        if (cache != null) throw new IllegalStateException("The near cache is already enabled");
+        cache = new SolidityNearCache(maxEntries, ttl, cacheMisses);
+    }
+
+    /**
+     * @return The near cache with its hit, miss and eviction counters, or null if the near cache is disabled.
+     */
+    public SolidityNearCache getCache() {
+        return cache;
+    }
+
+    private void invalidate(String key) {
+        SolidityNearCache nearCache = cache;
+        if (nearCache != null) nearCache.invalidate(key);
+    }
+
+    /**
+     * Enables the write-behind mode: {@link #put(String, String)} and {@link #delete(String)} only buffer the write
+     * in memory, writes to the same key are coalesced and flushed in batches once the amount of pending keys reaches
+     * the maximum or the flush interval passed. Reads see pending writes, {@link #close()} flushes every pending write.
+     *
+     * @param maxPending    The amount of pending keys which triggers a flush.
+     * @param flushInterval Milliseconds between periodic flushes.
+     * @throws IllegalStateException if the write-behind mode is already enabled.
+     */
+    public synchronized void enableWriteBehind(int maxPending, long flushInterval) {
+        if (writeBehind != null) throw new IllegalStateException("The write-behind mode is already enabled");
+        writeBehind = new SolidityWriteBehindBuffer(this, maxPending, flushInterval);
+    }
+
+    /**
+     * @return The write-behind buffer, or null if the write-behind mode is disabled.
+     */
+    public SolidityWriteBehindBuffer getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Writes every pending write of the write-behind mode to the database.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    public void flush() throws SQLException {
+        SolidityWriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.flush();
+    }
+
+    /**
+     * Writes upserts and deletions through the backend.
+     *
+     * @param upserts The keys mapped to their new value.
+     * @param deletes The keys to delete.
+     * @throws SQLException if a database access error occurs, nothing is written then.
+     */
+    void write(Map<String, byte[]> upserts, Collection<String> deletes) throws SQLException {
+        if (upserts.isEmpty() && deletes.isEmpty()) return;
+        backend.write(upserts, deletes);
+    }
+
+    /**
+     * @return The backend storing the values.
+     */
+    public SolidityMapBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return The connection pool of this database, possibly shared with other databases, or null if the
+     * values aren't stored in a relational database.
+     */
+    public SolidityConnectionPool getPool() {
+        return backend instanceof SolidityJdbcMapBackend ? ((SolidityJdbcMapBackend) backend).getPool() : null;
+    }
+
+    /**
+     * Returns the asynchronous view of this database. Databases stored in a relational database run on the executor
+     * of their connection pool, which is shared by every database using the pool. Other backends get their own executor
+     * on first use, with as many threads as the backend can serve at once.
+     *
+     * @return The asynchronous view of this database.
+     */
+    public SolidityAsyncMapDatabase async() {
+        return new SolidityAsyncMapDatabase(this, getExecutor(), false);
+    }
+
+    synchronized SolidityDatabaseExecutor getExecutor() {
+        SolidityConnectionPool pool = getPool();
+        if (pool != null) return pool.getExecutor();
+
+        if (executor == null) {
+            executor = new SolidityDatabaseExecutor("Solidity Map Database", backend.getParallelism(), SolidityLoader.getInstance());
+        }
+        return executor;
+    }
+
+    /**
+     * Closes the backend (or releases the database connection pool) when done. Pending writes of the write-behind mode
+     * are flushed first, as is queued asynchronous work unless it runs on the shared executor of the pool.
      */
     public void close() {
-        dataSource.close();
+        synchronized (this) {
+            if (executor != null) executor.shutdown(10000);
+            if (writeBehind != null) {
+                try {
+                    writeBehind.close();
+                } catch (SQLException e) {
+                    SolidityLogger.getLogger().error("Unable to flush " + writeBehind.size() + " pending database write(s) on close due to: \n" + e);
+                }
+            }
+        }
+        backend.close();
     }
 }
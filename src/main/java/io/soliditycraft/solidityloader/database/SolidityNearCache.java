@@ -0,0 +1,169 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded in-process cache of the values read by a {@link SolidityMapDatabase}.
+ * <p>Entries are evicted when they are older than the time to live or when the cache is full, in which case the
+ * least recently used entry is dropped. Missing keys can be cached as well, so repeated lookups of keys which
+ * don't exist don't hit the database either.</p>
+ */
+public class SolidityNearCache {
+
+    @Getter
+    private final int maxEntries;
+    @Getter
+    private final long ttl;
+    @Getter
+    private final boolean cacheMisses;
+    private final LinkedHashMap<String, CachedValue> entries;
+    /* Statistics */
+    @Getter
+    private final LongAdder hits = new LongAdder();
+    @Getter
+    private final LongAdder misses = new LongAdder();
+    @Getter
+    private final LongAdder evictions = new LongAdder();
+    /**
+     * Incremented on every invalidation, values loaded across an invalidation aren't cached as they may be stale.
+     */
+    private long invalidations;
+
+    /**
+     * Creates a new near cache.
+     *
+     * @param maxEntries  The maximum amount of cached keys.
+     * @param ttl         Milliseconds a cached value stays valid.
+     * @param cacheMisses Whether missing keys are cached too.
+     */
+    SolidityNearCache(int maxEntries, long ttl, boolean cacheMisses) {
+        if (maxEntries < 1) throw new IllegalArgumentException("The cache needs room for at least 1 entry");
+        if (ttl < 1) throw new IllegalArgumentException("The time to live must be at least 1 millisecond");
+
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.cacheMisses = cacheMisses;
+        this.entries = new LinkedHashMap<String, CachedValue>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                if (size() <= SolidityNearCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Looks up a key.
+     *
+     * @param key The key.
+     * @return The cached entry (whose value is null for a cached missing key), or null if the key isn't cached.
+     */
+    synchronized CachedValue get(String key) {
+        CachedValue entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.increment();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #put(String, byte[], long)} after loading a value from the database.
+     *
+     * @return The current stamp.
+     */
+    synchronized long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Caches a value loaded from the database, unless an invalidation happened since the load started.
+     *
+     * @param key   The key.
+     * @param value The loaded value, null if the key doesn't exist.
+     * @param stamp The stamp taken before the value was loaded.
+     */
+    synchronized void put(String key, byte[] value, long stamp) {
+        if (stamp != invalidations || (value == null && !cacheMisses)) return;
+        entries.put(key, new CachedValue(value, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Drops the cached value of a key after it was written.
+     *
+     * @param key The key.
+     */
+    synchronized void invalidate(String key) {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    /**
+     * Drops every expired entry.
+     */
+    public synchronized void cleanUp() {
+        long now = System.currentTimeMillis();
+        Iterator<CachedValue> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * @return The amount of cached keys.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The share of lookups answered by the cache, between 0 and 1.
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * A cached value together with its expiry time.
+     */
+    static final class CachedValue {
+
+        private final byte[] value;
+        private final long expiresAt;
+
+        CachedValue(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        byte[] getValue() {
+            return value;
+        }
+    }
+}
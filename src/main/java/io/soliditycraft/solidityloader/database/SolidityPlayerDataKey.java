@@ -0,0 +1,31 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+/**
+ * A field of the player data of a {@link SolidityPlayerDataStore}, stored in the map database under
+ * {@code <namespace>:<player uuid>:<name>}.
+ *
+ * @param <T> The type of the values.
+ */
+@Getter
+public final class SolidityPlayerDataKey<T> {
+
+    private final String name;
+    private final SolidityCodec<T> codec;
+
+    SolidityPlayerDataKey(String name, SolidityCodec<T> codec) {
+        this.name = name;
+        this.codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    byte[] encode(Object value) {
+        return codec.encode((T) value);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,63 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load (join) latency and flush counters of a {@link SolidityPlayerDataStore}.
+ */
+@Getter
+public class SolidityPlayerDataMetrics {
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder failedLoads = new LongAdder();
+    /* Load latency during the login in nanoseconds */
+    private final LongAdder loadTime = new LongAdder();
+    private final LongAccumulator maxLoadTime = new LongAccumulator(Math::max, 0);
+    /**
+     * Flush cycles which wrote at least one key.
+     */
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder flushedKeys = new LongAdder();
+    /**
+     * The amount of keys written by the last flush cycle.
+     */
+    private final AtomicLong lastFlushedKeys = new AtomicLong();
+    /* Flush latency in nanoseconds */
+    private final LongAdder flushTime = new LongAdder();
+    private final LongAccumulator maxFlushTime = new LongAccumulator(Math::max, 0);
+
+    void recordLoad(long nanos) {
+        loads.increment();
+        loadTime.add(nanos);
+        maxLoadTime.accumulate(nanos);
+    }
+
+    void recordFlush(int keys, long nanos) {
+        flushes.increment();
+        flushedKeys.add(keys);
+        lastFlushedKeys.set(keys);
+        flushTime.add(nanos);
+        maxFlushTime.accumulate(nanos);
+    }
+
+    /**
+     * @return The average load latency in nanoseconds.
+     */
+    public long getAverageLoadTime() {
+        long count = loads.sum();
+        return count == 0 ? 0 : loadTime.sum() / count;
+    }
+
+    /**
+     * @return The average amount of keys written per flush cycle.
+     */
+    public long getAverageFlushedKeys() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : flushedKeys.sum() / count;
+    }
+}
@@ -0,0 +1,321 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.SolidityLoader;
+import io.soliditycraft.solidityloader.SolidityLogger;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the data of online players in memory, so player actions don't hit the database.
+ *
+ * <p>The keys of a player are loaded in a single lookup while the player logs in
+ * ({@link AsyncPlayerPreLoginEvent}, off the server thread); if they can't be loaded the login is denied, so
+ * stale data is never written back. For the rest of the session reads and writes only touch memory. Changed keys
+ * are flushed periodically in one batch for every player, when the player quits and when Solidity disables.</p>
+ *
+ * <p>Keys have to be registered with {@link #registerKey(String, SolidityCodec)} before players log in. Stores
+ * created while players are online load them with {@link #loadOnlinePlayers()}.</p>
+ */
+public class SolidityPlayerDataStore implements Listener {
+
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    private final SolidityMapDatabase database;
+    private final SolidityDatabaseManager manager;
+    @Getter
+    private final String namespace;
+    /**
+     * The addon which created this store, it's closed when the addon is unloaded.
+     */
+    @Getter
+    private final String owner;
+    /**
+     * Ticks between periodic flushes.
+     */
+    @Getter
+    private final long flushInterval;
+    @Getter
+    private final SolidityPlayerDataMetrics metrics = new SolidityPlayerDataMetrics();
+    private final Map<String, SolidityPlayerDataKey<?>> keys = new ConcurrentHashMap<>();
+    private final Map<UUID, SolidityPlayerSession> sessions = new ConcurrentHashMap<>();
+    /**
+     * Sessions of players who quit, kept until their last changes have been flushed.
+     */
+    private final Map<UUID, SolidityPlayerSession> closing = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final BukkitTask flushTask;
+    private volatile boolean closed;
+
+    SolidityPlayerDataStore(SolidityMapDatabase database, String namespace, long flushInterval, String owner, SolidityDatabaseManager manager) {
+        if (flushInterval < 1) throw new IllegalArgumentException("The flush interval must be at least 1 tick");
+
+        this.database = database;
+        this.namespace = namespace;
+        this.owner = owner;
+        this.flushInterval = flushInterval;
+        this.manager = manager;
+
+        SolidityLoader loader = SolidityLoader.getInstance();
+        Bukkit.getPluginManager().registerEvents(this, loader);
+        this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(loader, this::flushQuietly, flushInterval, flushInterval);
+    }
+
+    /**
+     * Registers a key of the player data.
+     *
+     * @param name  The name of the key, unique in this store.
+     * @param codec The codec of the values.
+     * @param <T>   The type of the values.
+     * @return The key.
+     * @throws IllegalArgumentException if a key with the same name is already registered.
+     */
+    public <T> SolidityPlayerDataKey<T> registerKey(String name, SolidityCodec<T> codec) {
+        SolidityPlayerDataKey<T> key = new SolidityPlayerDataKey<>(name, codec);
+        if (keys.putIfAbsent(name, key) != null) {
+            throw new IllegalArgumentException("The key " + name + " is already registered in " + namespace);
+        }
+        return key;
+    }
+
+    /**
+     * Reads a value of an online player from memory.
+     *
+     * @param player The UUID of the player.
+     * @param key    The key.
+     * @param <T>    The type of the value.
+     * @return The value, or null if the key has no value.
+     * @throws IllegalStateException if the data of the player isn't loaded.
+     */
+    public <T> T get(UUID player, SolidityPlayerDataKey<T> key) {
+        return requireSession(player).get(key);
+    }
+
+    /**
+     * Changes a value of an online player in memory, it's written to the database by the next flush.
+     *
+     * @param player The UUID of the player.
+     * @param key    The key.
+     * @param value  The new value, null deletes the key.
+     * @param <T>    The type of the value.
+     * @throws IllegalStateException if the data of the player isn't loaded.
+     */
+    public <T> void set(UUID player, SolidityPlayerDataKey<T> key, T value) {
+        requireSession(player).set(key, value);
+    }
+
+    /**
+     * @param player The UUID of the player.
+     * @return The session of the player, or null if the data of the player isn't loaded.
+     */
+    public SolidityPlayerSession getSession(UUID player) {
+        return sessions.get(player);
+    }
+
+    /**
+     * @return The amount of loaded sessions.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Loads the data of every online player which isn't loaded yet. This blocks until every player is loaded and is
+     * meant for stores created while players are online, e.g. by an addon enabled at runtime.
+     */
+    public void loadOnlinePlayers() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (sessions.containsKey(player.getUniqueId())) continue;
+            try {
+                load(player.getUniqueId());
+            } catch (SQLException | RuntimeException e) {
+                metrics.getFailedLoads().increment();
+                logger.error("Unable to load the " + namespace + " data of " + player.getName() + " due to: \n" + e);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (closed || event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        try {
+            load(event.getUniqueId());
+        } catch (SQLException | RuntimeException e) {
+            metrics.getFailedLoads().increment();
+            logger.error("Unable to load the " + namespace + " data of " + event.getName() + " due to: \n" + e);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, "Unable to load your player data, please try again.");
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        // Another plugin denied the login after the data was loaded
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            sessions.remove(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID player = event.getPlayer().getUniqueId();
+        SolidityPlayerSession session = sessions.remove(player);
+        if (session == null) return;
+
+        // Parked even if it looks clean, a running flush may still be writing its last changes
+        closing.put(player, session);
+        try {
+            Bukkit.getScheduler().runTaskAsynchronously(SolidityLoader.getInstance(), () -> flushClosing(player));
+        } catch (RuntimeException e) {
+            // Solidity is disabling, the final flush writes the session
+        }
+    }
+
+    /**
+     * Loads the keys of a player in a single lookup. Changes of a previous session are written first (waiting for a
+     * running flush which may be writing them), so they are never read back stale. The lookup itself doesn't hold the
+     * flush lock, so logins of other players don't wait for each other.
+     */
+    private void load(UUID player) throws SQLException {
+        long started = System.nanoTime();
+        List<SolidityPlayerDataKey<?>> loadedKeys = new ArrayList<>(keys.values());
+        Map<String, SolidityPlayerDataKey<?>> byPath = new HashMap<>();
+        for (SolidityPlayerDataKey<?> key : loadedKeys) {
+            byPath.put(path(player, key.getName()), key);
+        }
+
+        // A closing session is only dropped once its changes are written, so without one there's nothing to wait for
+        SolidityPlayerSession previous = closing.get(player);
+        if (previous != null) {
+            synchronized (flushLock) {
+                flush(Collections.singletonList(previous));
+                closing.remove(player, previous);
+            }
+        }
+        Map<String, byte[]> data = database.getMany(byPath.keySet(), SolidityCodecs.BYTES);
+        Map<String, Object> values = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<String, SolidityPlayerDataKey<?>> entry : byPath.entrySet()) {
+            SolidityPlayerDataKey<?> key = entry.getValue();
+            names.add(key.getName());
+            byte[] value = data.get(entry.getKey());
+            if (value != null) values.put(key.getName(), key.getCodec().decode(value));
+        }
+
+        sessions.put(player, new SolidityPlayerSession(player, names, values));
+        metrics.recordLoad(System.nanoTime() - started);
+    }
+
+    /**
+     * Writes the changes of every loaded session and of players who quit in a single batch.
+     *
+     * @return The amount of written keys.
+     * @throws SQLException if the changes couldn't be written, they stay dirty and are retried by the next flush.
+     */
+    public int flush() throws SQLException {
+        List<SolidityPlayerSession> dirty = new ArrayList<>(sessions.values());
+        dirty.addAll(closing.values());
+        synchronized (flushLock) {
+            int written = flush(dirty);
+            // Under the flush lock, so a session is never dropped while another flush is still writing its changes
+            closing.entrySet().removeIf(entry -> !entry.getValue().isDirty());
+            return written;
+        }
+    }
+
+    private int flush(Collection<SolidityPlayerSession> targets) throws SQLException {
+        synchronized (flushLock) {
+            Map<SolidityPlayerSession, Map<String, Object>> snapshots = new LinkedHashMap<>();
+            for (SolidityPlayerSession session : targets) {
+                Map<String, Object> changes = session.drainDirty();
+                if (!changes.isEmpty()) snapshots.put(session, changes);
+            }
+            if (snapshots.isEmpty()) return 0;
+
+            long started = System.nanoTime();
+            Map<String, byte[]> writes = new LinkedHashMap<>();
+            try {
+                snapshots.forEach((session, changes) -> changes.forEach((name, value) ->
+                        writes.put(path(session.getUniqueId(), name), value != null ? keys.get(name).encode(value) : null)));
+                database.putAll(writes, SolidityCodecs.BYTES);
+            } catch (SQLException | RuntimeException e) {
+                snapshots.forEach((session, changes) -> session.markDirty(changes.keySet()));
+                metrics.getFailedFlushes().increment();
+                throw e;
+            }
+            metrics.recordFlush(writes.size(), System.nanoTime() - started);
+            return writes.size();
+        }
+    }
+
+    private void flushClosing(UUID player) {
+        SolidityPlayerSession session = closing.get(player);
+        if (session == null) return;
+        try {
+            // Waits for a running flush, whose failed changes are marked dirty again and written here
+            synchronized (flushLock) {
+                flush(Collections.singletonList(session));
+                if (!session.isDirty()) closing.remove(player, session);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Unable to flush the " + namespace + " data of " + player + " on quit, retrying with the next flush due to: \n" + e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Unable to flush the " + namespace + " player data due to: \n" + e);
+        }
+    }
+
+    /**
+     * Stops listening for logins, flushes every change synchronously and drops every session.
+     * Must be called before the map database is closed.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        flushTask.cancel();
+        HandlerList.unregisterAll(this);
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Unable to flush the " + namespace + " player data on close, changes of up to " + (sessions.size() + closing.size()) + " player(s) are lost due to: \n" + e);
+        }
+        sessions.clear();
+        closing.clear();
+        manager.unregisterPlayerDataStore(this);
+    }
+
+    private SolidityPlayerSession requireSession(UUID player) {
+        SolidityPlayerSession session = sessions.get(player);
+        if (session == null) throw new IllegalStateException("The " + namespace + " data of " + player + " isn't loaded");
+        return session;
+    }
+
+    private String path(UUID player, String name) {
+        return namespace + ":" + player + ":" + name;
+    }
+}
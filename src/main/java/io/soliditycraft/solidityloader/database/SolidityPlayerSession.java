@@ -0,0 +1,102 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The player data of an online player, loaded by a {@link SolidityPlayerDataStore} when the player logged in.
+ * Reads are served from memory, writes mark the key dirty until the next flush.
+ */
+public class SolidityPlayerSession {
+
+    @Getter
+    private final UUID uniqueId;
+    /**
+     * The keys registered when the session was loaded, only these can be read and written.
+     */
+    private final Set<String> loadedKeys;
+    private final Map<String, Object> values;
+    private final Set<String> dirty = new HashSet<>();
+    @Getter
+    private final long loadedAt = System.currentTimeMillis();
+
+    SolidityPlayerSession(UUID uniqueId, Set<String> loadedKeys, Map<String, Object> values) {
+        this.uniqueId = uniqueId;
+        this.loadedKeys = loadedKeys;
+        this.values = values;
+    }
+
+    /**
+     * Reads the value of a key.
+     *
+     * @param key The key.
+     * @param <T> The type of the value.
+     * @return The value, or null if the key has no value.
+     * @throws IllegalStateException if the key was registered after the session was loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(SolidityPlayerDataKey<T> key) {
+        checkLoaded(key);
+        return (T) values.get(key.getName());
+    }
+
+    /**
+     * Changes the value of a key, it's written to the database by the next flush.
+     *
+     * @param key   The key.
+     * @param value The new value, null deletes the key.
+     * @param <T>   The type of the value.
+     * @throws IllegalStateException if the key was registered after the session was loaded.
+     */
+    public synchronized <T> void set(SolidityPlayerDataKey<T> key, T value) {
+        checkLoaded(key);
+        if (value != null) {
+            values.put(key.getName(), value);
+        } else {
+            values.remove(key.getName());
+        }
+        dirty.add(key.getName());
+    }
+
+    /**
+     * @return Whether the session has changes which haven't been flushed yet.
+     */
+    public synchronized boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Takes the current values of every dirty key and marks them clean.
+     *
+     * @return The dirty key names mapped to their current value, null for deleted keys.
+     */
+    synchronized Map<String, Object> drainDirty() {
+        Map<String, Object> snapshot = new HashMap<>();
+        for (String name : dirty) {
+            snapshot.put(name, values.get(name));
+        }
+        dirty.clear();
+        return snapshot;
+    }
+
+    /**
+     * Marks keys dirty again after their flush failed.
+     *
+     * @param names The key names.
+     */
+    synchronized void markDirty(Collection<String> names) {
+        dirty.addAll(names);
+    }
+
+    private void checkLoaded(SolidityPlayerDataKey<?> key) {
+        if (!loadedKeys.contains(key.getName())) {
+            throw new IllegalStateException("The key " + key.getName() + " was registered after the data of " + uniqueId + " was loaded");
+        }
+    }
+}
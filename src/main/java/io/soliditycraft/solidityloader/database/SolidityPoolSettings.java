@@ -0,0 +1,99 @@
+package io.soliditycraft.solidityloader.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Data;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Settings of the connection pools created by the {@link SolidityDatabaseManager}, read from the
+ * {@code database.pool} section of the Solidity configuration.
+ */
+@Data
+public class SolidityPoolSettings {
+
+    private int maximumPoolSize = 10;
+    private int minimumIdle = 2;
+    private long connectionTimeout = 30000; // 30 seconds
+    private long idleTimeout = 600000; // 10 minutes
+    private long maxLifetime = 1800000; // 30 minutes
+    private long leakDetectionThreshold = 0; // Disabled
+    /* Milliseconds to wait for the first connection when the pool is created, -1 to start without one */
+    private long initializationFailTimeout = 1;
+    /* Prepared statement caching of the driver */
+    private boolean cachePreparedStatements = true;
+    private int preparedStatementCacheSize = 250;
+    private int preparedStatementCacheSqlLimit = 2048;
+    /* Server-side cursors for queries with a fetch size (MySQL), every such query then opens a cursor */
+    private boolean cursorFetch = false;
+
+    /**
+     * Reads the pool settings from a configuration section, missing values keep their defaults.
+     *
+     * @param section The {@code database.pool} section, may be null.
+     * @return The pool settings.
+     */
+    public static SolidityPoolSettings from(ConfigurationSection section) {
+        SolidityPoolSettings settings = new SolidityPoolSettings();
+        if (section == null) return settings;
+
+        settings.setMaximumPoolSize(section.getInt("maximum_pool_size", settings.getMaximumPoolSize()));
+        settings.setMinimumIdle(section.getInt("minimum_idle", settings.getMinimumIdle()));
+        settings.setConnectionTimeout(section.getLong("connection_timeout_ms", settings.getConnectionTimeout()));
+        settings.setIdleTimeout(section.getLong("idle_timeout_ms", settings.getIdleTimeout()));
+        settings.setMaxLifetime(section.getLong("max_lifetime_ms", settings.getMaxLifetime()));
+        settings.setLeakDetectionThreshold(section.getLong("leak_detection_threshold_ms", settings.getLeakDetectionThreshold()));
+        settings.setCachePreparedStatements(section.getBoolean("cache_prepared_statements", settings.isCachePreparedStatements()));
+        settings.setPreparedStatementCacheSize(section.getInt("prepared_statement_cache_size", settings.getPreparedStatementCacheSize()));
+        settings.setPreparedStatementCacheSqlLimit(section.getInt("prepared_statement_cache_sql_limit", settings.getPreparedStatementCacheSqlLimit()));
+        settings.setCursorFetch(section.getBoolean("cursor_fetch", settings.isCursorFetch()));
+        return settings;
+    }
+
+    /**
+     * Returns a copy of these settings for a pool which starts even if its database is unreachable and connects on
+     * first use instead, e.g. for read replicas which are skipped while they're down.
+     *
+     * @return The copied settings.
+     */
+    public SolidityPoolSettings withoutInitializationCheck() {
+        SolidityPoolSettings settings = new SolidityPoolSettings();
+        settings.setMaximumPoolSize(maximumPoolSize);
+        settings.setMinimumIdle(minimumIdle);
+        settings.setConnectionTimeout(connectionTimeout);
+        settings.setIdleTimeout(idleTimeout);
+        settings.setMaxLifetime(maxLifetime);
+        settings.setLeakDetectionThreshold(leakDetectionThreshold);
+        settings.setInitializationFailTimeout(-1);
+        settings.setCachePreparedStatements(cachePreparedStatements);
+        settings.setPreparedStatementCacheSize(preparedStatementCacheSize);
+        settings.setPreparedStatementCacheSqlLimit(preparedStatementCacheSqlLimit);
+        settings.setCursorFetch(cursorFetch);
+        return settings;
+    }
+
+    /**
+     * Applies these settings to a Hikari configuration.
+     *
+     * @param config The Hikari configuration.
+     */
+    public void apply(HikariConfig config) {
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(Math.min(minimumIdle, maximumPoolSize));
+        config.setConnectionTimeout(connectionTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        if (leakDetectionThreshold > 0) config.setLeakDetectionThreshold(leakDetectionThreshold);
+        config.setInitializationFailTimeout(initializationFailTimeout);
+
+        // Driver side prepared statement cache (MySQL Connector/J and MariaDB property names)
+        if (cachePreparedStatements) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(preparedStatementCacheSize));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(preparedStatementCacheSqlLimit));
+        }
+        // Makes MySQL honour the fetch size of streamed queries instead of streaming them row by row
+        if (cursorFetch) {
+            config.addDataSourceProperty("useCursorFetch", "true");
+        }
+    }
+}
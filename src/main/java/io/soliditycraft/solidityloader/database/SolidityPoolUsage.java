@@ -0,0 +1,50 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Borrow and wait statistics of a single owner (usually an addon) of a shared connection pool.
+ */
+@Getter
+public class SolidityPoolUsage {
+
+    private final String owner;
+    private final LongAdder borrows = new LongAdder();
+    /**
+     * Borrows which failed, e.g. because no connection became available within the connection timeout.
+     */
+    private final LongAdder failures = new LongAdder();
+    /* Time in nanoseconds spent waiting for a connection */
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+    private final SolidityLatencyHistogram waitTimes = new SolidityLatencyHistogram();
+
+    SolidityPoolUsage(String owner) {
+        this.owner = owner;
+    }
+
+    void recordBorrow(long nanos) {
+        borrows.increment();
+        waitTime.add(nanos);
+        maxWaitTime.accumulate(nanos);
+        waitTimes.record(nanos);
+    }
+
+    void recordFailure(long nanos) {
+        failures.increment();
+        waitTime.add(nanos);
+        maxWaitTime.accumulate(nanos);
+        waitTimes.record(nanos);
+    }
+
+    /**
+     * @return The average time in nanoseconds a borrow waited for a connection.
+     */
+    public long getAverageWaitTime() {
+        long count = borrows.sum() + failures.sum();
+        return count == 0 ? 0 : waitTime.sum() / count;
+    }
+}
@@ -0,0 +1,232 @@
+package io.soliditycraft.solidityloader.database;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.soliditycraft.solidityloader.SolidityLogger;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the latency, row counts and failures of every SQL statement run through Solidity databases, per owner
+ * and statement, and logs statements slower than the slow-query threshold.
+ * <p>The connection pool wait times are recorded by the pools themselves, see {@link SolidityPoolUsage}.</p>
+ */
+public class SolidityQueryMetrics {
+
+    private static final SolidityQueryMetrics INSTANCE = new SolidityQueryMetrics();
+    /**
+     * The maximum amount of distinct statements tracked, statements beyond are counted as {@link #OTHER_STATEMENTS}
+     * so SQL built with inlined values can't grow the metrics without bounds.
+     */
+    private static final int MAX_STATEMENTS = 1000;
+    private static final String OTHER_STATEMENTS = "<other statements>";
+    private static final int MAX_SQL_LENGTH = 500;
+    private static final int SLOW_QUERY_HISTORY = 100;
+
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    private final Map<String, SolidityStatementStats> statements = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    /**
+     * Statements taking at least this many milliseconds are logged, 0 disables the slow-query log.
+     */
+    @Getter
+    private volatile long slowQueryThreshold = 250;
+
+    /**
+     * @return The metrics of every database.
+     */
+    public static SolidityQueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the slow-query threshold.
+     *
+     * @param slowQueryThreshold Milliseconds from which statements are logged, 0 to disable the slow-query log.
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        if (slowQueryThreshold < 0) throw new IllegalArgumentException("The slow-query threshold can't be negative");
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * Records an executed statement.
+     *
+     * @param owner     The owner running the statement.
+     * @param statement The SQL of the statement.
+     * @param nanos     The execution time in nanoseconds.
+     * @param rows      The returned or affected rows.
+     */
+    void record(String owner, String statement, long nanos, long rows) {
+        SolidityStatementStats stats = getStats(owner, statement);
+        stats.getLatency().record(nanos);
+        stats.getRows().add(Math.max(0, rows));
+        checkSlow(stats, nanos, rows, false);
+    }
+
+    /**
+     * Records a statement which failed.
+     *
+     * @param owner     The owner running the statement.
+     * @param statement The SQL of the statement.
+     * @param nanos     The time in nanoseconds until it failed.
+     */
+    void recordFailure(String owner, String statement, long nanos) {
+        SolidityStatementStats stats = getStats(owner, statement);
+        stats.getLatency().record(nanos);
+        stats.getFailures().increment();
+        checkSlow(stats, nanos, 0, true);
+    }
+
+    private SolidityStatementStats getStats(String owner, String statement) {
+        String key = owner + '\n' + statement;
+        SolidityStatementStats stats = statements.get(key);
+        if (stats != null) return stats;
+
+        if (statements.size() >= MAX_STATEMENTS) {
+            return statements.computeIfAbsent(owner + '\n' + OTHER_STATEMENTS, ignored -> new SolidityStatementStats(owner, OTHER_STATEMENTS));
+        }
+        return statements.computeIfAbsent(key, ignored -> new SolidityStatementStats(owner, normalize(statement)));
+    }
+
+    private void checkSlow(SolidityStatementStats stats, long nanos, long rows, boolean failed) {
+        long threshold = slowQueryThreshold;
+        if (threshold <= 0 || nanos < threshold * 1_000_000L) return;
+
+        SlowQuery slowQuery = new SlowQuery(System.currentTimeMillis(), stats.getOwner(), stats.getStatement(), nanos, rows, failed);
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= SLOW_QUERY_HISTORY) slowQueries.removeFirst();
+            slowQueries.addLast(slowQuery);
+        }
+        logger.warn(String.format("Slow query by %s (%.1fms, %d row(s)%s): %s", stats.getOwner(), nanos / 1_000_000D, rows,
+                failed ? ", failed" : "", stats.getStatement()));
+    }
+
+    /**
+     * @return The statistics of every statement, the statements with the most total time first.
+     */
+    public List<SolidityStatementStats> getSortedStatements() {
+        List<SolidityStatementStats> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingLong((SolidityStatementStats stats) -> stats.getLatency().getMean() * stats.getLatency().getCount()).reversed());
+        return sorted;
+    }
+
+    /**
+     * @return The most recent slow queries, oldest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    /**
+     * Drops every recorded statement and slow query.
+     */
+    public void reset() {
+        statements.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * Writes the statement statistics, the pool wait times and the recent slow queries as JSON.
+     *
+     * @param file  The file to write.
+     * @param pools The connection pools whose wait times are included.
+     * @throws IOException if the file can't be written.
+     */
+    public void dump(File file, List<SolidityConnectionPool> pools) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("generated", System.currentTimeMillis());
+        root.put("slow_query_threshold_ms", slowQueryThreshold);
+
+        ArrayNode statementNodes = root.putArray("statements");
+        for (SolidityStatementStats stats : getSortedStatements()) {
+            ObjectNode node = statementNodes.addObject();
+            node.put("owner", stats.getOwner());
+            node.put("statement", stats.getStatement());
+            node.put("rows", stats.getRows().sum());
+            node.put("failures", stats.getFailures().sum());
+            putHistogram(node.putObject("latency"), stats.getLatency());
+        }
+
+        ArrayNode poolNodes = root.putArray("pools");
+        for (SolidityConnectionPool pool : pools) {
+            ObjectNode poolNode = poolNodes.addObject();
+            poolNode.put("name", pool.getName());
+            poolNode.put("maximum_pool_size", pool.getMaximumPoolSize());
+            ArrayNode owners = poolNode.putArray("owners");
+            for (SolidityPoolUsage usage : pool.getUsage().values()) {
+                ObjectNode owner = owners.addObject();
+                owner.put("owner", usage.getOwner());
+                owner.put("borrows", usage.getBorrows().sum());
+                owner.put("failures", usage.getFailures().sum());
+                putHistogram(owner.putObject("wait"), usage.getWaitTimes());
+            }
+        }
+
+        ArrayNode slowNodes = root.putArray("slow_queries");
+        for (SlowQuery slowQuery : getSlowQueries()) {
+            slowNodes.addPOJO(slowQuery);
+        }
+
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
+    }
+
+    private static void putHistogram(ObjectNode node, SolidityLatencyHistogram histogram) {
+        node.put("count", histogram.getCount());
+        node.put("mean_ns", histogram.getMean());
+        node.put("p50_ns", histogram.getPercentile(50));
+        node.put("p95_ns", histogram.getPercentile(95));
+        node.put("p99_ns", histogram.getPercentile(99));
+        node.put("max_ns", histogram.getMax());
+        ArrayNode buckets = node.putArray("buckets");
+        for (long bucket : histogram.getBuckets()) {
+            buckets.add(bucket);
+        }
+    }
+
+    /**
+     * Collapses whitespace and truncates long statements for display.
+     */
+    private static String normalize(String sql) {
+        String normalized = sql.trim().replaceAll("\\s+", " ");
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) + "..." : normalized;
+    }
+
+    /**
+     * A statement which took longer than the slow-query threshold.
+     */
+    @Getter
+    public static final class SlowQuery {
+
+        private final long time;
+        private final String owner;
+        private final String statement;
+        private final long nanos;
+        private final long rows;
+        private final boolean failed;
+
+        SlowQuery(long time, String owner, String statement, long nanos, long rows, boolean failed) {
+            this.time = time;
+            this.owner = owner;
+            this.statement = statement;
+            this.nanos = nanos;
+            this.rows = rows;
+            this.failed = failed;
+        }
+    }
+}
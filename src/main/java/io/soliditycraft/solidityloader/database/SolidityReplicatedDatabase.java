@@ -0,0 +1,276 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.SolidityLogger;
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SolidityDatabase} with a primary and read replicas.
+ *
+ * <p>Writes, transactions and raw connections always use the primary. Read-only queries
+ * ({@link #query(String, SolidityRowMapper, Object...)}, {@link #executeQuery(String)} and the queries of
+ * {@link #async()}) are sent to the replica
+ * with the least outstanding queries; a replica whose connections fail is skipped for
+ * {@link #REPLICA_RETRY_DELAY} milliseconds, and reads fall back to the primary if no replica is available.</p>
+ *
+ * <p>Reads are pinned to the primary so a caller always sees its own writes: inside a transaction, and for the
+ * stickiness window (see {@link #setStickiness(long)}) after the current thread wrote through this database.
+ * The window should cover the replication lag of the replicas. The pin belongs to the thread which wrote: calls
+ * through {@link #async()} run on executor threads, so a read through the async view may not see an earlier write
+ * made through it. Reads which must see a write should run in the same {@link #inTransaction} call.</p>
+ *
+ * <p>Nodes are plain JDBC URLs, so any driver works, e.g. an embedded database standing in for every node while
+ * testing.</p>
+ */
+public class SolidityReplicatedDatabase extends SolidityDatabase {
+
+    /**
+     * The default milliseconds reads stay pinned to the primary after a write.
+     */
+    public static final long DEFAULT_STICKINESS = 5000;
+    /**
+     * Milliseconds a failing replica is skipped.
+     */
+    public static final long REPLICA_RETRY_DELAY = 30000;
+
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    @Getter
+    private final List<Replica> replicas;
+    /**
+     * The replica every borrowed read connection belongs to, so it can be returned to the right node.
+     */
+    private final Map<Connection, Replica> leased = new ConcurrentHashMap<>();
+    /**
+     * The time of the last write of every thread, in milliseconds.
+     */
+    private final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+    /**
+     * Reads which were pinned to the primary or fell back to it.
+     */
+    @Getter
+    private final LongAdder primaryReads = new LongAdder();
+    @Getter
+    private volatile long stickiness = DEFAULT_STICKINESS;
+
+    /**
+     * Constructs a replicated database with its own connection pools.
+     *
+     * @param primaryUrl  The JDBC URL of the primary.
+     * @param replicaUrls The JDBC URLs of the replicas.
+     * @param username    The username for every node.
+     * @param password    The password for every node.
+     */
+    public SolidityReplicatedDatabase(String primaryUrl, List<String> replicaUrls, String username, String password) {
+        this(createPools(primaryUrl, replicaUrls, username, password), SolidityDatabaseManager.findOwner());
+    }
+
+    private SolidityReplicatedDatabase(List<SolidityConnectionPool> nodes, String owner) {
+        this(nodes.get(0), nodes.subList(1, nodes.size()), owner, null);
+    }
+
+    /**
+     * Constructs a replicated database on shared connection pools.
+     *
+     * @param primary  The pool of the primary, already retained for this database and released when it's closed.
+     * @param replicas The pools of the replicas, already retained for this database and released when it's closed.
+     * @param owner    The owner the connections are borrowed for.
+     * @param manager  The manager sharing the pools, or null if the pools belong to this database alone.
+     */
+    SolidityReplicatedDatabase(SolidityConnectionPool primary, List<SolidityConnectionPool> replicas, String owner, SolidityDatabaseManager manager) {
+        super(primary, owner, manager);
+        List<Replica> nodes = new ArrayList<>();
+        for (SolidityConnectionPool pool : replicas) {
+            nodes.add(new Replica(pool));
+        }
+        this.replicas = Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Creates the pool of the primary followed by the pools of the replicas. Replica pools start even if their
+     * replica is down, and the pools created so far are closed if one can't be created.
+     */
+    private static List<SolidityConnectionPool> createPools(String primaryUrl, List<String> replicaUrls, String username, String password) {
+        List<SolidityConnectionPool> pools = new ArrayList<>();
+        try {
+            pools.add(new SolidityConnectionPool("Solidity Primary", primaryUrl, username, password, new SolidityPoolSettings()).retain());
+            SolidityPoolSettings replicaSettings = new SolidityPoolSettings().withoutInitializationCheck();
+            for (int i = 0; i < replicaUrls.size(); i++) {
+                pools.add(new SolidityConnectionPool("Solidity Replica #" + (i + 1), replicaUrls.get(i), username, password, replicaSettings).retain());
+            }
+        } catch (RuntimeException e) {
+            for (SolidityConnectionPool pool : pools) {
+                pool.release();
+            }
+            throw e;
+        }
+        return pools;
+    }
+
+    /**
+     * Sets how long reads of a thread stay pinned to the primary after it wrote.
+     *
+     * @param stickiness The window in milliseconds, 0 to only pin reads inside transactions.
+     */
+    public void setStickiness(long stickiness) {
+        if (stickiness < 0) throw new IllegalArgumentException("The stickiness can't be negative");
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    int update(String sql) throws SQLException {
+        markWrite();
+        return super.update(sql);
+    }
+
+    /**
+     * Borrows a connection to the primary, reads of the current thread are pinned to the primary afterwards.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        markWrite();
+        return super.getConnection();
+    }
+
+    @Override
+    public <T> T withConnection(SoliditySqlFunction<Connection, T> function) throws SQLException {
+        markWrite();
+        return super.withConnection(function);
+    }
+
+    @Override
+    public <T> T inTransaction(SoliditySqlFunction<SolidityTransaction, T> work) throws SQLException {
+        markWrite();
+        try {
+            return super.inTransaction(work);
+        } finally {
+            markWrite();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void beginTransaction() throws SQLException {
+        markWrite();
+        super.beginTransaction();
+    }
+
+    @Override
+    @Deprecated
+    public void commitTransaction() throws SQLException {
+        try {
+            super.commitTransaction();
+        } finally {
+            markWrite();
+        }
+    }
+
+    /**
+     * Borrows a connection of the replica with the least outstanding reads, unless reads are pinned to the primary.
+     */
+    @Override
+    Connection acquireRead() throws SQLException {
+        if (isInTransaction() || isPinned()) {
+            primaryReads.increment();
+            return super.acquireRead();
+        }
+
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicas) {
+            if (replica.downUntil <= now) candidates.add(replica);
+        }
+        // Random order first, so ties don't always favour the first replica
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        candidates.sort((first, second) -> Integer.compare(first.outstanding.get(), second.outstanding.get()));
+
+        for (Replica replica : candidates) {
+            replica.outstanding.incrementAndGet();
+            try {
+                Connection connection = replica.pool.getConnection(getOwner());
+                leased.put(connection, replica);
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replica.outstanding.decrementAndGet();
+                replica.failures.increment();
+                replica.downUntil = System.currentTimeMillis() + REPLICA_RETRY_DELAY;
+                logger.warn("Skipping the replica " + replica.pool.getJdbcUrl() + " for " + (REPLICA_RETRY_DELAY / 1000) + " seconds due to: \n" + e);
+            }
+        }
+
+        primaryReads.increment();
+        return super.acquireRead();
+    }
+
+    @Override
+    void releaseRead(Connection connection) {
+        Replica replica = leased.remove(connection);
+        if (replica == null) {
+            super.releaseRead(connection);
+            return;
+        }
+        replica.outstanding.decrementAndGet();
+        closeQuietly(connection);
+    }
+
+    private void markWrite() {
+        if (stickiness > 0) lastWrite.set(System.currentTimeMillis());
+    }
+
+    private boolean isPinned() {
+        Long written = lastWrite.get();
+        if (written == null) return false;
+        if (System.currentTimeMillis() - written < stickiness) return true;
+        lastWrite.remove();
+        return false;
+    }
+
+    /**
+     * Closes the connection pools of the primary and every replica when done.
+     */
+    @Override
+    public void close() {
+        super.close();
+        SolidityDatabaseManager manager = getManager();
+        for (Replica replica : replicas) {
+            if (manager != null) {
+                manager.releasePool(replica.pool);
+            } else {
+                replica.pool.release();
+            }
+        }
+    }
+
+    /**
+     * A read replica with its load and failure counters.
+     */
+    @Getter
+    public static final class Replica {
+
+        private final SolidityConnectionPool pool;
+        /**
+         * Reads which borrowed a connection and haven't returned it yet.
+         */
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        /**
+         * The time in milliseconds until which the replica is skipped after a failure.
+         */
+        private volatile long downUntil;
+
+        Replica(SolidityConnectionPool pool) {
+            this.pool = pool;
+        }
+    }
+}
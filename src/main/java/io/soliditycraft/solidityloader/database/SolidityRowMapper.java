@@ -0,0 +1,23 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ * <p>The mapper must only read the current row and must not move the cursor.</p>
+ *
+ * @param <T> The type of the mapped rows.
+ */
+@FunctionalInterface
+public interface SolidityRowMapper<T> {
+
+    /**
+     * Maps the current row of the result set.
+     *
+     * @param resultSet The result set, positioned on the row to map.
+     * @return The mapped row.
+     * @throws SQLException if a database access error occurs.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
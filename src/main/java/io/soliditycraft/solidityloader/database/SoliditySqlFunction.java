@@ -0,0 +1,22 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.sql.SQLException;
+
+/**
+ * A function which may throw a {@link SQLException}, e.g. a query working on a pooled connection.
+ *
+ * @param <T> The type of the input.
+ * @param <R> The type of the result.
+ */
+@FunctionalInterface
+public interface SoliditySqlFunction<T, R> {
+
+    /**
+     * Applies this function to the given input.
+     *
+     * @param value The input.
+     * @return The result.
+     * @throws SQLException if a database access error occurs.
+     */
+    R apply(T value) throws SQLException;
+}
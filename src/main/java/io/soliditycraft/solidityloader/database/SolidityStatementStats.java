@@ -0,0 +1,37 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, row and failure counters of a single SQL statement run by a single owner (usually an addon).
+ */
+@Getter
+public class SolidityStatementStats {
+
+    private final String owner;
+    /**
+     * The SQL of the statement, or a description for statements built with a varying amount of placeholders.
+     */
+    private final String statement;
+    private final SolidityLatencyHistogram latency = new SolidityLatencyHistogram();
+    /**
+     * Rows returned by queries and affected by updates.
+     */
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    SolidityStatementStats(String owner, String statement) {
+        this.owner = owner;
+        this.statement = statement;
+    }
+
+    /**
+     * @return The average amount of rows per execution.
+     */
+    public long getAverageRows() {
+        long count = latency.getCount();
+        return count == 0 ? 0 : rows.sum() / count;
+    }
+}
@@ -0,0 +1,133 @@
+package io.soliditycraft.solidityloader.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A unit of work running on a single connection, see {@link SolidityDatabase#inTransaction(SoliditySqlFunction)}.
+ * <p>The transaction is committed or rolled back by the database, it must not be used after the work returned.</p>
+ */
+public class SolidityTransaction {
+
+    private final SolidityDatabase database;
+    private final Connection connection;
+    private final SolidityQueryMetrics metrics = SolidityQueryMetrics.getInstance();
+
+    SolidityTransaction(SolidityDatabase database, Connection connection) {
+        this.database = database;
+        this.connection = connection;
+    }
+
+    /**
+     * Executes a parameterized SQL update statement (INSERT, UPDATE, DELETE) in this transaction.
+     *
+     * @param sql    The SQL statement to execute, with {@code ?} placeholders.
+     * @param params The values of the placeholders.
+     * @return The amount of affected rows.
+     * @throws SQLException if a database access error occurs.
+     */
+    public int update(String sql, Object... params) throws SQLException {
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            SolidityDatabase.bind(statement, params);
+            int rows = statement.executeUpdate();
+            metrics.record(database.getOwner(), sql, System.nanoTime() - started, rows);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(database.getOwner(), sql, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a parameterized SQL query in this transaction and maps every row.
+     *
+     * @param sql    The SQL query to execute, with {@code ?} placeholders.
+     * @param mapper The mapper converting each row.
+     * @param params The values of the placeholders.
+     * @param <T>    The type of the mapped rows.
+     * @return The mapped rows.
+     * @throws SQLException if a database access error occurs.
+     */
+    public <T> List<T> query(String sql, SolidityRowMapper<T> mapper, Object... params) throws SQLException {
+        long started = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(database.getFetchSize());
+            SolidityDatabase.bind(statement, params);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    rows.add(mapper.map(resultSet));
+                }
+                metrics.record(database.getOwner(), sql, System.nanoTime() - started, rows.size());
+                return rows;
+            }
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(database.getOwner(), sql, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a savepoint in this transaction.
+     *
+     * @param name The name of the savepoint.
+     * @return The savepoint.
+     * @throws SQLException if a database access error occurs.
+     */
+    public Savepoint savepoint(String name) throws SQLException {
+        return connection.setSavepoint(name);
+    }
+
+    /**
+     * Undoes every change made after a savepoint, the transaction itself continues.
+     *
+     * @param savepoint The savepoint to roll back to.
+     * @throws SQLException if a database access error occurs.
+     */
+    public void rollbackTo(Savepoint savepoint) throws SQLException {
+        connection.rollback(savepoint);
+    }
+
+    /**
+     * Releases a savepoint which is no longer needed.
+     *
+     * @param savepoint The savepoint to release.
+     */
+    public void release(Savepoint savepoint) {
+        releaseQuietly(connection, savepoint);
+    }
+
+    /**
+     * Runs a part of this transaction behind a savepoint: if the part fails, only its changes are rolled back
+     * and the exception is rethrown. Must be called on the thread running the transaction.
+     *
+     * @param work The part of the transaction.
+     * @param <T>  The type of the result.
+     * @return The result of the work.
+     * @throws SQLException if the work failed.
+     */
+    public <T> T nested(SoliditySqlFunction<SolidityTransaction, T> work) throws SQLException {
+        return database.inTransaction(work);
+    }
+
+    /**
+     * @return The connection of this transaction. It must not be closed or committed.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    static void releaseQuietly(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException ignored) {
+            // Not every driver can release savepoints, they are released with the transaction
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.soliditycraft.solidityloader.database;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Commit latency and retry counters of the transactions of a database.
+ */
+@Getter
+public class SolidityTransactionMetrics {
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    /**
+     * Transactions which were run again after a deadlock or a lock wait timeout.
+     */
+    private final LongAdder retries = new LongAdder();
+    /**
+     * Transactions which failed for good, after every retry.
+     */
+    private final LongAdder failures = new LongAdder();
+    /* Commit latency in nanoseconds */
+    private final LongAdder commitTime = new LongAdder();
+    private final LongAccumulator maxCommitTime = new LongAccumulator(Math::max, 0);
+
+    void recordCommit(long nanos) {
+        commits.increment();
+        commitTime.add(nanos);
+        maxCommitTime.accumulate(nanos);
+    }
+
+    /**
+     * @return The average commit latency in nanoseconds.
+     */
+    public long getAverageCommitTime() {
+        long count = commits.sum();
+        return count == 0 ? 0 : commitTime.sum() / count;
+    }
+}
@@ -0,0 +1,170 @@
+package io.soliditycraft.solidityloader.database;
+
+import io.soliditycraft.solidityloader.SolidityLogger;
+import io.soliditycraft.solidityloader.utils.SolidityThreadFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers the writes of a {@link SolidityMapDatabase} in memory and writes them in batches.
+ * <p>Writes to the same key are coalesced, only the latest value (or deletion) of a key is written. The buffer is
+ * flushed every flush interval and as soon as the amount of pending keys reaches the maximum. A pending write stays
+ * visible to reads until it has been written; if a flush fails the writes are kept and retried by the next flush.</p>
+ */
+public class SolidityWriteBehindBuffer {
+
+    private final SolidityMapDatabase database;
+    private final SolidityLogger logger = SolidityLogger.getLogger();
+    private final Map<String, Write> pending = new ConcurrentHashMap<>();
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    /**
+     * Creates a new write-behind buffer and starts flushing it periodically.
+     *
+     * @param database      The database the writes are flushed to.
+     * @param maxPending    The amount of pending keys which triggers a flush.
+     * @param flushInterval Milliseconds between periodic flushes.
+     */
+    SolidityWriteBehindBuffer(SolidityMapDatabase database, int maxPending, long flushInterval) {
+        if (maxPending < 1) throw new IllegalArgumentException("The maximum amount of pending writes must be at least 1");
+        if (flushInterval < 1) throw new IllegalArgumentException("The flush interval must be at least 1 millisecond");
+
+        this.database = database;
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new SolidityThreadFactory("Solidity Write Behind"));
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers the value of a key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    void put(String key, byte[] value) {
+        pending.put(key, new Write(value));
+        checkSize();
+    }
+
+    /**
+     * Buffers the deletion of a key.
+     *
+     * @param key The key.
+     */
+    void delete(String key) {
+        pending.put(key, new Write(null));
+        checkSize();
+    }
+
+    /**
+     * Looks up the pending write of a key.
+     *
+     * @param key The key.
+     * @return The pending write, or null if the key has no pending write.
+     */
+    Write get(String key) {
+        return pending.get(key);
+    }
+
+    /**
+     * @return The amount of keys with a pending write.
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Writes every pending write to the database. Upserts and deletions are each written with multi-row
+     * statements in a single transaction.
+     *
+     * @throws SQLException if the writes couldn't be flushed, the writes stay pending.
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            flushScheduled.set(false);
+            if (pending.isEmpty()) return;
+
+            Map<String, Write> snapshot = new HashMap<>(pending);
+            Map<String, byte[]> upserts = new LinkedHashMap<>();
+            List<String> deletes = new ArrayList<>();
+            snapshot.forEach((key, write) -> {
+                if (write.isDeletion()) {
+                    deletes.add(key);
+                } else {
+                    upserts.put(key, write.getValue());
+                }
+            });
+
+            database.write(upserts, deletes);
+
+            // Keys written again during the flush keep their newer write
+            snapshot.forEach(pending::remove);
+        }
+    }
+
+    /**
+     * Stops the periodic flushes and flushes every pending write.
+     *
+     * @throws SQLException if the pending writes couldn't be flushed.
+     */
+    void close() throws SQLException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void checkSize() {
+        if (pending.size() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Unable to flush " + pending.size() + " pending database write(s) due to: \n" + e);
+        }
+    }
+
+    /**
+     * A pending write, either a value or a deletion.
+     */
+    static final class Write {
+
+        private final byte[] value;
+
+        Write(byte[] value) {
+            this.value = value;
+        }
+
+        byte[] getValue() {
+            return value;
+        }
+
+        boolean isDeletion() {
+            return value == null;
+        }
+    }
+}
@@ -1,11 +1,7 @@
 package io.soliditycraft.solidityloader.gui;
 
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -15,6 +11,9 @@ import java.util.List;
  * The {@code CustomPagedSolidityGui} class provides a paginated GUI system where developers can
  * explicitly define custom pages, with each page represented by a {@link SolidityGui}.
  * It supports adding custom pages and navigating between them with "Next" and "Previous" buttons.
+ * <p>
+ * The pages are copied into a {@link SolidityGuiTemplate}, so a single instance can be opened for any amount of
+ * players, each of them navigating the pages on their own {@link SolidityGuiSession}.
  */
 public class SolidityCustomPageGui {
 
@@ -22,107 +21,105 @@ public class SolidityCustomPageGui {
      * List of custom pages, each represented by a {@link SolidityGui}.
      */
     private final List<SolidityGui> pages = new ArrayList<>();
-
     /**
-     * The current page index the player is viewing (0-indexed).
+     * The template built from the pages, rebuilt when the GUI is opened after pages were added.
      */
-    private int currentPage = 0;
+    private SolidityGuiTemplate template;
 
     /**
-     * Adds a new custom page to the GUI system.
+     * Adds a new custom page to the GUI system. Items added to the page afterwards are only shown
+     * once another page is added.
      *
      * @param page the {@link SolidityGui} representing the custom page.
      * @return the current instance of {@code CustomPagedSolidityGui}, useful for method chaining.
      */
     public SolidityCustomPageGui addPage(SolidityGui page) {
-        // Add navigation buttons to the page if necessary
-        addNavigationButtons(page);
         pages.add(page);
+        template = null;
         return this;
     }
 
     /**
-     * Opens the current page of the GUI for the specified player and registers the GUI as a listener.
+     * Returns the template of this GUI, building it if pages were added since it was built.
+     * Navigation buttons cover the items in the last slot and in the first slot of the last row of a page.
      *
-     * @param player the player who will see the inventory.
-     * @return the current instance of {@code CustomPagedSolidityGui}, useful for method chaining.
+     * @return the template shared by every viewer of this GUI.
+     * @throws IllegalStateException if no pages were added.
      */
-    public SolidityCustomPageGui open(@NotNull Player player) {
+    public SolidityGuiTemplate getTemplate() {
         if (pages.isEmpty()) {
             throw new IllegalStateException("No pages added to the GUI.");
         }
-        pages.get(currentPage).open(player); // Open the current page
-        return this;
+        if (template == null) {
+            SolidityGuiTemplate.Builder builder = SolidityGuiTemplate.builder();
+            for (SolidityGui page : pages) {
+                builder.page(page.getHolder(), page.getSize(), page.getTitle());
+                for (SolidityItem item : page.getItems()) {
+                    builder.item(item);
+                }
+            }
+            template = builder.build();
+        }
+        return template;
     }
 
     /**
-     * Adds "Next" and "Previous" buttons to a given page if applicable.
+     * Opens the first page of the GUI for the specified player and routes its inventory events to the player's session.
      *
-     * @param page the {@link SolidityGui} where the buttons will be added.
+     * @param player the player who will see the inventory.
+     * @return the current instance of {@code CustomPagedSolidityGui}, useful for method chaining.
      */
-    private void addNavigationButtons(SolidityGui page) {
-        // "Next Page" button
-        if (pages.size() > 1) {
-            if (currentPage < pages.size() - 1) {
-                ItemStack nextPage = createNavigationItem(Material.ARROW, "§aNext Page");
-                page.addItem(new SolidityItem(nextPage, page.getSize() - 1, this::nextPage));
-            }
-
-            // "Previous Page" button
-            if (currentPage > 0) {
-                ItemStack prevPage = createNavigationItem(Material.ARROW, "§cPrevious Page");
-                page.addItem(new SolidityItem(prevPage, page.getSize() - 9, this::previousPage));
-            }
-        }
+    public SolidityCustomPageGui open(@NotNull Player player) {
+        openSession(player);
+        return this;
     }
 
     /**
-     * Creates a navigation {@link ItemStack} with the specified material and name.
+     * Opens the first page of the GUI for the specified player and returns the player's session.
      *
-     * @param material the {@link Material} of the item (e.g., an arrow for navigation).
-     * @param name     the display name of the item.
-     * @return the created {@link ItemStack}.
+     * @param player the player who will see the inventory.
+     * @return the session of the player, holding the page the player is on.
      */
-    private ItemStack createNavigationItem(Material material, String name) {
-        ItemStack item = new ItemStack(material);
-        ItemMeta meta = item.getItemMeta();
-        meta.setDisplayName(name);
-        item.setItemMeta(meta);
-        return item;
+    public SolidityGuiSession openSession(@NotNull Player player) {
+        return getTemplate().open(player);
     }
 
     /**
-     * Moves to the next page in the GUI.
+     * Moves a player viewing this GUI to the next page, usable as the executor of a {@link SolidityItem}.
      *
      * @param player the player to whom the next page will be shown.
+     * @param e      the click on the item.
      */
-    private void nextPage(Player player, InventoryClickEvent e) {
-        if (currentPage < pages.size() - 1) {
-            currentPage++;
-            open(player);
-        }
+    public void nextPage(Player player, InventoryClickEvent e) {
+        SolidityGuiSession session = getSession(player);
+        if (session != null) session.nextPage();
     }
 
     /**
-     * Moves to the previous page in the GUI.
+     * Moves a player viewing this GUI to the previous page, usable as the executor of a {@link SolidityItem}.
      *
      * @param player the player to whom the previous page will be shown.
+     * @param e      the click on the item.
      */
-    private void previousPage(Player player, InventoryClickEvent e) {
-        if (currentPage > 0) {
-            currentPage--;
-            open(player);
-        }
+    public void previousPage(Player player, InventoryClickEvent e) {
+        SolidityGuiSession session = getSession(player);
+        if (session != null) session.previousPage();
     }
 
     /**
-     * Handles inventory click events, such as clicks on "Next" and "Previous" page buttons.
+     * Passes a click to the session of the clicking player, if the player is viewing this GUI.
+     * Clicks are routed to the sessions by the {@link SolidityGuiRouter}, so this is only kept for addons calling it.
      *
      * @param event the {@link InventoryClickEvent} triggered when a player interacts with the GUI.
      */
-    @EventHandler
+    @Deprecated
     public void handleInventoryClick(@NotNull InventoryClickEvent event) {
-        SolidityGui currentGui = pages.get(currentPage);
-        currentGui.handleInventoryClick(event); // Delegate the event to the current page's handler
+        SolidityGuiSession session = getSession((Player) event.getWhoClicked());
+        if (session != null) session.handleInventoryClick(event);
+    }
+
+    private SolidityGuiSession getSession(Player player) {
+        SolidityGuiSession session = SolidityGuiSession.getSession(player);
+        return session != null && template != null && session.getTemplate() == template ? session : null;
     }
 }
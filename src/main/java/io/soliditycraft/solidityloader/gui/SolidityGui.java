@@ -1,12 +1,10 @@
 package io.soliditycraft.solidityloader.gui;
 
+import io.soliditycraft.solidityloader.SolidityLoader;
 import io.soliditycraft.solidityloader.listener.SolidityListener;
-import io.soliditycraft.solidityloader.listener.SolidityListenerManager;
-import io.soliditycraft.solidityloader.utils.SolUtils;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
@@ -21,23 +19,33 @@ import java.util.List;
  * It provides functionality to open a custom inventory for players, handle inventory interactions,
  * and store custom items (represented by {@code SolidityItem}) within the GUI.
  * <p>
- * This class extends {@code SolidityListener}, allowing it to listen for inventory click events and
- * perform actions based on user interaction with the GUI.
+ * This class implements {@code SolidityGuiHandler}, receiving the inventory click events of its viewers
+ * from the {@link SolidityGuiRouter} and performing actions based on user interaction with the GUI.
+ * It still extends {@code SolidityListener} for addons subclassing it, but is no longer registered as a
+ * listener, so {@link #getLoader()} returns {@code null}.
  */
-@Getter
-public class SolidityGui extends SolidityListener {
+public class SolidityGui extends SolidityListener implements SolidityGuiHandler {
 
     /**
      * The Bukkit {@link Inventory} that represents the custom GUI.
      */
+    @Getter
     private final Inventory gui;
 
     /**
      * A list of {@link SolidityItem} objects representing the items in the GUI.
      */
+    @Getter
     private final List<SolidityItem> items = new ArrayList<>();
+    /**
+     * The items indexed by their slot, so a click is resolved without comparing item stacks.
+     */
+    private final SolidityItem[] slots;
+    @Getter
     private final int size;
+    @Getter
     private final InventoryHolder holder;
+    @Getter
     private final String title;
 
     /**
@@ -51,6 +59,7 @@ public class SolidityGui extends SolidityListener {
         this.holder = holder;
         this.size = size;
         this.title = title;
+        this.slots = new SolidityItem[size];
         this.gui = Bukkit.createInventory(holder, size, title);
     }
 
@@ -65,37 +74,55 @@ public class SolidityGui extends SolidityListener {
     }
 
     /**
-     * Opens the GUI for a specified player and registers this GUI as a listener for inventory events.
+     * Opens the GUI for a specified player and routes its inventory events to this GUI.
      *
      * @param player the player who will see the inventory.
      * @return the current instance of {@code SolidityGui}, useful for method chaining.
      */
     public SolidityGui open(@NotNull Player player) {
         createGuiItems(); // Add items to the GUI before opening
-        SolidityListenerManager.register(this); // Register this GUI as an event listener
-        player.openInventory(gui); // Open the inventory for the player
+        SolidityLoader.getInstance().getGuiRouter().open(player, gui, this); // Open the inventory and route its events to this GUI
         return this;
     }
 
     /**
      * Adds a {@code SolidityItem} to the list of items to be displayed in the GUI.
+     * An item added to an occupied slot replaces the previous item of that slot.
      *
      * @param item the item to be added.
      * @return the current instance of {@code SolidityGui}, useful for method chaining.
+     * @throws IllegalArgumentException if the position of the item is outside of the inventory.
      */
     public SolidityGui addItem(SolidityItem item) {
+        int position = item.getPosition();
+        if (position < 0 || position >= size) {
+            throw new IllegalArgumentException("Invalid slot " + position + " for a GUI of size " + size);
+        }
+        SolidityItem previous = slots[position];
+        if (previous != null) items.remove(previous);
+        slots[position] = item;
         items.add(item);
         return this;
     }
 
     /**
-     * Handles player interaction with the inventory by listening for {@link InventoryClickEvent}.
-     * If a player clicks an item in the custom GUI, the associated {@code SolidityItem} executor
-     * will be run.
+     * Returns the item in a slot of this GUI.
+     *
+     * @param slot the slot of the item.
+     * @return the item, or {@code null} if the slot is empty or outside of the inventory.
+     */
+    public SolidityItem getItem(int slot) {
+        return slot >= 0 && slot < slots.length ? slots[slot] : null;
+    }
+
+    /**
+     * Handles player interaction with the inventory, routed by the {@link SolidityGuiRouter}.
+     * If a player clicks an item in the custom GUI, the executor of the {@code SolidityItem} in
+     * the clicked slot will be run.
      *
      * @param event the {@link InventoryClickEvent} triggered when a player interacts with the GUI.
      */
-    @EventHandler
+    @Override
     public void handleInventoryClick(@NotNull InventoryClickEvent event) {
         // Only handle clicks in this custom GUI
         if (!isInGui(event)) return;
@@ -108,8 +135,8 @@ public class SolidityGui extends SolidityListener {
         // If the clicked item is invalid, return
         if (isInvalidItem(clickedItem)) return;
 
-        // Find the corresponding SolidityItem in the GUI based on the clicked item
-        SolidityItem item = SolUtils.find(items, (v) -> v.getItem().equals(clickedItem));
+        // Raw slots below the size of the GUI are the slots of the top inventory
+        SolidityItem item = getItem(event.getRawSlot());
 
         // Execute the item's action if found
         if (item != null) {
@@ -0,0 +1,36 @@
+package io.soliditycraft.solidityloader.gui;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The {@code SolidityGuiHandler} interface receives the events of a GUI opened through the {@link SolidityGuiRouter}.
+ * Handlers aren't Bukkit listeners, the router only passes them the events of players viewing their inventory.
+ */
+public interface SolidityGuiHandler {
+
+    /**
+     * Handles a click of a player viewing the GUI, in the GUI or in the player's own inventory.
+     *
+     * @param event the {@link InventoryClickEvent} triggered when the player interacts with the GUI.
+     */
+    void handleInventoryClick(@NotNull InventoryClickEvent event);
+
+    /**
+     * Handles a player dragging items while viewing the GUI.
+     *
+     * @param event the {@link InventoryDragEvent} triggered when the player drags items.
+     */
+    default void handleInventoryDrag(@NotNull InventoryDragEvent event) {
+    }
+
+    /**
+     * Handles a player closing the GUI. The router has already forgotten the GUI of the player.
+     *
+     * @param event the {@link InventoryCloseEvent} triggered when the player closes the GUI.
+     */
+    default void handleInventoryClose(@NotNull InventoryCloseEvent event) {
+    }
+}
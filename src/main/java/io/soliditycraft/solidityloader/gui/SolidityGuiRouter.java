@@ -0,0 +1,173 @@
+package io.soliditycraft.solidityloader.gui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SolidityGuiRouter} class is the single listener dispatching inventory events to the open GUIs.
+ * <p>
+ * Every player has at most one open GUI, so the router maps the player to the inventory and
+ * {@link SolidityGuiHandler} of the GUI they're viewing. A click is a single map lookup no matter how many
+ * GUIs were opened before, as the mapping is removed when the player closes the GUI or leaves the server.
+ */
+public class SolidityGuiRouter implements Listener {
+
+    private final Map<UUID, OpenGui> openGuis = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the router and registers it as a listener.
+     *
+     * @param plugin the plugin the listener is registered for.
+     */
+    public SolidityGuiRouter(@NotNull Plugin plugin) {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Opens an inventory for a player and routes the events of the player's view to a handler until it's closed.
+     *
+     * @param player    the player who will see the inventory.
+     * @param inventory the inventory of the GUI.
+     * @param handler   the handler receiving the events of the GUI.
+     * @return {@code true} if the inventory was opened; {@code false} if opening it was cancelled.
+     */
+    public boolean open(@NotNull Player player, @NotNull Inventory inventory, @NotNull SolidityGuiHandler handler) {
+        // Opening closes the previous view first, which removes the previous GUI of the player
+        InventoryView view = player.openInventory(inventory);
+        if (view == null) return false;
+
+        openGuis.put(player.getUniqueId(), new OpenGui(player, inventory, handler));
+        return true;
+    }
+
+    /**
+     * Returns the handler of the GUI a player is viewing.
+     *
+     * @param player the player.
+     * @return the handler, or {@code null} if the player isn't viewing a GUI.
+     */
+    public SolidityGuiHandler getHandler(@NotNull Player player) {
+        OpenGui openGui = openGuis.get(player.getUniqueId());
+        return openGui != null ? openGui.handler : null;
+    }
+
+    /**
+     * @return The amount of players viewing a GUI.
+     */
+    public int getOpenGuis() {
+        return openGuis.size();
+    }
+
+    /**
+     * Closes every open GUI whose handler or item actions were loaded by a class loader, so an unloaded addon's
+     * code can no longer be run by a click and its class loader can be garbage collected.
+     *
+     * @param classLoader the class loader of the addon.
+     * @return the amount of closed GUIs.
+     */
+    public int closeGuis(@NotNull ClassLoader classLoader) {
+        int closed = 0;
+        for (Map.Entry<UUID, OpenGui> entry : new ArrayList<>(openGuis.entrySet())) {
+            OpenGui openGui = entry.getValue();
+            if (!isLoadedBy(openGui.handler, classLoader)) continue;
+
+            openGuis.remove(entry.getKey(), openGui);
+            openGui.player.closeInventory();
+            closed++;
+        }
+        return closed;
+    }
+
+    private static boolean isLoadedBy(SolidityGuiHandler handler, ClassLoader classLoader) {
+        if (handler.getClass().getClassLoader() == classLoader) return true;
+
+        Collection<SolidityItem> items = Collections.emptyList();
+        if (handler instanceof SolidityGuiSession) {
+            items = ((SolidityGuiSession) handler).getTemplate().getItems();
+        } else if (handler instanceof SolidityGui) {
+            items = ((SolidityGui) handler).getItems();
+        }
+        for (SolidityItem item : items) {
+            if (item.getExecutor() != null && item.getExecutor().getClass().getClassLoader() == classLoader) return true;
+        }
+        return false;
+    }
+
+    @EventHandler
+    public void handleInventoryClick(@NotNull InventoryClickEvent event) {
+        OpenGui openGui = openGuis.get(event.getWhoClicked().getUniqueId());
+        if (openGui == null || event.getView().getTopInventory() != openGui.inventory) return;
+
+        openGui.handler.handleInventoryClick(event);
+    }
+
+    @EventHandler
+    public void handleInventoryDrag(@NotNull InventoryDragEvent event) {
+        OpenGui openGui = openGuis.get(event.getWhoClicked().getUniqueId());
+        if (openGui == null || event.getView().getTopInventory() != openGui.inventory) return;
+
+        openGui.handler.handleInventoryDrag(event);
+    }
+
+    @EventHandler
+    public void handleInventoryClose(@NotNull InventoryCloseEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        OpenGui openGui = openGuis.get(uuid);
+        if (openGui == null || event.getInventory() != openGui.inventory) return;
+
+        openGuis.remove(uuid, openGui);
+        openGui.handler.handleInventoryClose(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerQuit(@NotNull PlayerQuitEvent event) {
+        openGuis.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Closes every open GUI and unregisters the router, so no items can be taken out of the GUIs
+     * once their clicks are no longer cancelled.
+     */
+    public void close() {
+        for (OpenGui openGui : new ArrayList<>(openGuis.values())) {
+            openGui.player.closeInventory();
+        }
+        openGuis.clear();
+        HandlerList.unregisterAll(this);
+    }
+
+    /**
+     * The GUI a player is viewing.
+     */
+    private static final class OpenGui {
+
+        private final Player player;
+        private final Inventory inventory;
+        private final SolidityGuiHandler handler;
+
+        private OpenGui(Player player, Inventory inventory, SolidityGuiHandler handler) {
+            this.player = player;
+            this.inventory = inventory;
+            this.handler = handler;
+        }
+    }
+}
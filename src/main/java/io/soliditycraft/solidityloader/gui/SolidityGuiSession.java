@@ -0,0 +1,155 @@
+package io.soliditycraft.solidityloader.gui;
+
+import io.soliditycraft.solidityloader.SolidityLoader;
+import lombok.Getter;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code SolidityGuiSession} class is a player viewing a {@link SolidityGuiTemplate}. It only holds the page the
+ * player is on and the state stored by the actions of the items, the layout is shared through the template.
+ * <p>
+ * Every click and drag of the viewer is cancelled, so the shared inventories of the template can't be modified.
+ */
+public class SolidityGuiSession implements SolidityGuiHandler {
+
+    @Getter
+    private final SolidityGuiTemplate template;
+    @Getter
+    private final Player player;
+    /**
+     * The page the player is on (0-indexed).
+     */
+    @Getter
+    private int page;
+    /**
+     * Values stored by the actions of the items, created on first use.
+     */
+    private Map<String, Object> state;
+
+    SolidityGuiSession(SolidityGuiTemplate template, Player player) {
+        this.template = template;
+        this.player = player;
+    }
+
+    /**
+     * Returns the session of the template GUI a player is viewing, e.g. from the action of an item.
+     *
+     * @param player the player.
+     * @return the session, or {@code null} if the player isn't viewing a template GUI.
+     */
+    public static SolidityGuiSession getSession(@NotNull Player player) {
+        SolidityGuiHandler handler = SolidityLoader.getInstance().getGuiRouter().getHandler(player);
+        return handler instanceof SolidityGuiSession ? (SolidityGuiSession) handler : null;
+    }
+
+    /**
+     * Shows a page of the template to the player.
+     *
+     * @param page the index of the page (0-indexed).
+     * @return {@code true} if the page was opened; {@code false} if opening it was cancelled.
+     * @throws IllegalArgumentException if the template has no page with that index.
+     */
+    public boolean open(int page) {
+        SolidityGuiTemplate.Page target = template.getPage(page);
+        int previous = this.page;
+        this.page = page;
+        if (SolidityLoader.getInstance().getGuiRouter().open(player, target.getInventory(), this)) return true;
+
+        // The player is still viewing the previous page
+        this.page = previous;
+        return false;
+    }
+
+    /**
+     * Shows the next page, if there is one.
+     *
+     * @return {@code true} if the next page was opened.
+     */
+    public boolean nextPage() {
+        return page < template.getPages().size() - 1 && open(page + 1);
+    }
+
+    /**
+     * Shows the previous page, if there is one.
+     *
+     * @return {@code true} if the previous page was opened.
+     */
+    public boolean previousPage() {
+        return page > 0 && open(page - 1);
+    }
+
+    /**
+     * Closes the GUI if the player is still viewing this session.
+     */
+    public void close() {
+        if (SolidityLoader.getInstance().getGuiRouter().getHandler(player) == this) {
+            player.closeInventory();
+        }
+    }
+
+    /**
+     * Returns a value stored in this session.
+     *
+     * @param key the key of the value.
+     * @param <T> the type of the value.
+     * @return the value, or {@code null} if none is stored.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull String key) {
+        return state != null ? (T) state.get(key) : null;
+    }
+
+    /**
+     * Stores a value in this session, it's kept across pages until the session is discarded.
+     *
+     * @param key   the key of the value.
+     * @param value the value, {@code null} to remove it.
+     */
+    public void set(@NotNull String key, Object value) {
+        if (value == null) {
+            if (state != null) state.remove(key);
+            return;
+        }
+        if (state == null) state = new HashMap<>();
+        state.put(key, value);
+    }
+
+    /**
+     * Handles a click of the viewer, running the navigation or the action of the item in the clicked slot.
+     *
+     * @param event the {@link InventoryClickEvent} triggered when the player interacts with the GUI.
+     */
+    @Override
+    public void handleInventoryClick(@NotNull InventoryClickEvent event) {
+        // Clicks in the player's inventory could move items into the shared inventory
+        event.setCancelled(true);
+
+        SolidityGuiTemplate.Page current = template.getPage(page);
+        // Raw slots below the size of the page are the slots of the top inventory
+        int slot = event.getRawSlot();
+        if (current.isNextButton(slot)) {
+            nextPage();
+            return;
+        }
+        if (current.isPreviousButton(slot)) {
+            previousPage();
+            return;
+        }
+
+        SolidityItem item = current.getItem(slot);
+        if (item != null && item.getExecutor() != null) {
+            item.getExecutor().run(player, event);
+        }
+    }
+
+    @Override
+    public void handleInventoryDrag(@NotNull InventoryDragEvent event) {
+        event.setCancelled(true);
+    }
+}
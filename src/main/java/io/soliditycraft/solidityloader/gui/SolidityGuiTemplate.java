@@ -0,0 +1,257 @@
+package io.soliditycraft.solidityloader.gui;
+
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code SolidityGuiTemplate} class is the immutable layout of a GUI: its pages, their items and the actions of
+ * those items. A template is shared by every player viewing it, the page a player is on is kept by the player's
+ * {@link SolidityGuiSession}.
+ * <p>
+ * Every page is rendered once into an inventory shared by all of its viewers, as clicks and drags in a template GUI
+ * are always cancelled. Opening a template for another player only creates a session, so the memory used grows with
+ * the amount of viewers and not with the amount of viewers times the amount of items.
+ * <p>
+ * Pages with a following or preceding page get "Next" and "Previous" buttons in their last slot and in the first slot
+ * of their last row, covering the items in those slots.
+ */
+public final class SolidityGuiTemplate {
+
+    @Getter
+    private final List<Page> pages;
+
+    private SolidityGuiTemplate(List<Page> pages) {
+        this.pages = Collections.unmodifiableList(pages);
+    }
+
+    /**
+     * @return Every item of every page, without the navigation buttons.
+     */
+    public List<SolidityItem> getItems() {
+        List<SolidityItem> items = new ArrayList<>();
+        for (Page page : pages) {
+            for (SolidityItem item : page.slots) {
+                if (item != null) items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @return A new builder for a template.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a page of this template.
+     *
+     * @param index the index of the page (0-indexed).
+     * @return the page.
+     * @throws IllegalArgumentException if the template has no page with that index.
+     */
+    public Page getPage(int index) {
+        if (index < 0 || index >= pages.size()) {
+            throw new IllegalArgumentException("Invalid page " + index + " for a GUI with " + pages.size() + " pages");
+        }
+        return pages.get(index);
+    }
+
+    /**
+     * Opens the first page of this template for a player.
+     *
+     * @param player the player who will see the GUI.
+     * @return the session of the player.
+     */
+    public SolidityGuiSession open(@NotNull Player player) {
+        return open(player, 0);
+    }
+
+    /**
+     * Opens a page of this template for a player.
+     *
+     * @param player the player who will see the GUI.
+     * @param page   the index of the page to open (0-indexed).
+     * @return the session of the player.
+     */
+    public SolidityGuiSession open(@NotNull Player player, int page) {
+        SolidityGuiSession session = new SolidityGuiSession(this, player);
+        session.open(page);
+        return session;
+    }
+
+    /**
+     * A page of a template, rendered into the inventory shared by its viewers.
+     */
+    public static final class Page {
+
+        @Getter
+        private final int index;
+        @Getter
+        private final String title;
+        /**
+         * The inventory shown to every viewer of this page, it must not be modified.
+         */
+        @Getter
+        private final Inventory inventory;
+        private final SolidityItem[] slots;
+        private final boolean hasPrevious;
+        private final boolean hasNext;
+
+        private Page(int index, PageLayout layout, boolean hasPrevious, boolean hasNext, ItemStack previousButton, ItemStack nextButton) {
+            this.index = index;
+            this.title = layout.title;
+            this.slots = layout.slots.clone();
+            this.hasPrevious = hasPrevious;
+            this.hasNext = hasNext;
+
+            this.inventory = Bukkit.createInventory(layout.holder, slots.length, title);
+            for (SolidityItem item : slots) {
+                if (item != null) inventory.setItem(item.getPosition(), item.getItem());
+            }
+            if (hasNext) inventory.setItem(getNextSlot(), nextButton);
+            if (hasPrevious) inventory.setItem(getPreviousSlot(), previousButton);
+        }
+
+        /**
+         * @return The amount of slots of this page.
+         */
+        public int getSize() {
+            return slots.length;
+        }
+
+        /**
+         * Returns the item in a slot of this page.
+         *
+         * @param slot the slot of the item.
+         * @return the item, or {@code null} if the slot is empty, a navigation button or outside of the inventory.
+         */
+        public SolidityItem getItem(int slot) {
+            if (slot < 0 || slot >= slots.length || isNextButton(slot) || isPreviousButton(slot)) return null;
+            return slots[slot];
+        }
+
+        /**
+         * @param slot the slot.
+         * @return {@code true} if the slot holds the "Next" button of this page.
+         */
+        public boolean isNextButton(int slot) {
+            return hasNext && slot == getNextSlot();
+        }
+
+        /**
+         * @param slot the slot.
+         * @return {@code true} if the slot holds the "Previous" button of this page.
+         */
+        public boolean isPreviousButton(int slot) {
+            return hasPrevious && slot == getPreviousSlot();
+        }
+
+        private int getNextSlot() {
+            return slots.length - 1;
+        }
+
+        private int getPreviousSlot() {
+            return slots.length - 9;
+        }
+    }
+
+    /**
+     * Builds a template page by page. The builder is not thread-safe and can be reused after {@link #build()}.
+     */
+    public static final class Builder {
+
+        private final List<PageLayout> layouts = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Starts a new page, following items are added to it.
+         *
+         * @param holder the {@link InventoryHolder} for the inventory of the page, can be null.
+         * @param size   the size of the page (must be a multiple of 9).
+         * @param title  the title of the page as seen by the player.
+         * @return the current instance of {@code Builder}, useful for method chaining.
+         */
+        public Builder page(InventoryHolder holder, int size, String title) {
+            if (size <= 0 || size % 9 != 0) throw new IllegalArgumentException("Invalid GUI size " + size);
+            layouts.add(new PageLayout(holder, size, title));
+            return this;
+        }
+
+        /**
+         * Adds an item to the current page. An item added to an occupied slot replaces the previous item of that slot.
+         *
+         * @param item the item to be added.
+         * @return the current instance of {@code Builder}, useful for method chaining.
+         * @throws IllegalStateException    if no page was started.
+         * @throws IllegalArgumentException if the position of the item is outside of the page.
+         */
+        public Builder item(SolidityItem item) {
+            if (layouts.isEmpty()) throw new IllegalStateException("No page was started");
+            PageLayout layout = layouts.get(layouts.size() - 1);
+            int position = item.getPosition();
+            if (position < 0 || position >= layout.slots.length) {
+                throw new IllegalArgumentException("Invalid slot " + position + " for a GUI of size " + layout.slots.length);
+            }
+            layout.slots[position] = item;
+            return this;
+        }
+
+        /**
+         * Renders the pages and builds the template. Must be called on the main thread.
+         *
+         * @return the template.
+         * @throws IllegalStateException if no page was started.
+         */
+        public SolidityGuiTemplate build() {
+            if (layouts.isEmpty()) throw new IllegalStateException("No page was started");
+
+            // The buttons are shared by every page, they're copied into the inventories
+            ItemStack previousButton = createNavigationItem("§cPrevious Page");
+            ItemStack nextButton = createNavigationItem("§aNext Page");
+            List<Page> pages = new ArrayList<>(layouts.size());
+            for (int i = 0; i < layouts.size(); i++) {
+                pages.add(new Page(i, layouts.get(i), i > 0, i < layouts.size() - 1, previousButton, nextButton));
+            }
+            return new SolidityGuiTemplate(pages);
+        }
+
+        private static ItemStack createNavigationItem(String name) {
+            ItemStack item = new ItemStack(Material.ARROW);
+            ItemMeta meta = item.getItemMeta();
+            meta.setDisplayName(name);
+            item.setItemMeta(meta);
+            return item;
+        }
+    }
+
+    /**
+     * The items of a page while it's being built.
+     */
+    private static final class PageLayout {
+
+        private final InventoryHolder holder;
+        private final String title;
+        private final SolidityItem[] slots;
+
+        private PageLayout(InventoryHolder holder, int size, String title) {
+            this.holder = holder;
+            this.title = title;
+            this.slots = new SolidityItem[size];
+        }
+    }
+}
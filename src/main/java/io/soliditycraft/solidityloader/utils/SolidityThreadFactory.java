@@ -0,0 +1,32 @@
+package io.soliditycraft.solidityloader.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadFactory} creating named daemon threads, so Solidity worker threads
+ * are easy to recognize in thread dumps and never keep the server alive on shutdown.
+ */
+public class SolidityThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Creates a new thread factory.
+     *
+     * @param name The base name of the created threads, e.g. "Solidity Discovery".
+     */
+    public SolidityThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(@NotNull Runnable runnable) {
+        Thread thread = new Thread(runnable, name + " #" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
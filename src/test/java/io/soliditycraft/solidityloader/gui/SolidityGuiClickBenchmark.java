@@ -0,0 +1,154 @@
+package io.soliditycraft.solidityloader.gui;
+
+import io.soliditycraft.solidityloader.utils.SolUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Compares the two ways a click on a 54-slot menu can be resolved to its {@link SolidityItem}: scanning the items
+ * with {@link SolUtils#find} and {@link ItemStack#equals}, as the GUIs did before, and {@link SolidityGui#getItem(int)}
+ * with the clicked raw slot, as they do now.
+ * <p>
+ * A plain timing harness, run it with the test classpath:
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;spigot-api.jar&gt; io.soliditycraft.solidityloader.gui.SolidityGuiClickBenchmark
+ * </pre>
+ * Comparing item stacks reads their item meta through the item factory of the server, so the harness installs a
+ * minimal server whose item factory hands out empty metas. Real menus with display names and lore make every
+ * comparison, and so the scan, more expensive.
+ */
+public class SolidityGuiClickBenchmark {
+
+    private static final int SIZE = 54;
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int MEASURED_ROUNDS = 1_000_000;
+
+    public static void main(String[] args) {
+        installServer();
+
+        SolidityGui gui = new SolidityGui(null, SIZE, "Benchmark");
+        List<SolidityItem> items = new ArrayList<>();
+        ItemStack[] clicked = new ItemStack[SIZE];
+        long[] executed = new long[1];
+        for (int slot = 0; slot < SIZE; slot++) {
+            // Equal type, differing amounts: every comparison before the match has to look past the type
+            SolidityItem item = SolidityItem.builder()
+                    .item(new ItemStack(Material.STONE, slot + 1))
+                    .position(slot)
+                    .executor((player, event) -> executed[0]++)
+                    .build();
+            items.add(item);
+            gui.addItem(item);
+            // The server hands out a copy of the stack in the clicked slot
+            clicked[slot] = new ItemStack(Material.STONE, slot + 1);
+        }
+
+        long checksum = 0;
+        checksum += scan(items, clicked, WARMUP_ROUNDS);
+        checksum += lookup(gui, WARMUP_ROUNDS);
+
+        long started = System.nanoTime();
+        checksum += scan(items, clicked, MEASURED_ROUNDS);
+        long scanTime = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        checksum += lookup(gui, MEASURED_ROUNDS);
+        long lookupTime = System.nanoTime() - started;
+
+        long clicks = (long) MEASURED_ROUNDS * SIZE;
+        System.out.println("Clicks per approach: " + clicks + " (checksum " + checksum + ")");
+        System.out.printf("SolUtils.find + ItemStack.equals: %.2f ns/click%n", (double) scanTime / clicks);
+        System.out.printf("SolidityGui.getItem:              %.2f ns/click%n", (double) lookupTime / clicks);
+        System.out.printf("Speedup:                          %.1fx%n", (double) scanTime / Math.max(1, lookupTime));
+    }
+
+    /**
+     * Resolves a click on every slot by scanning the items, the way the GUIs did before.
+     */
+    private static long scan(List<SolidityItem> items, ItemStack[] clicked, int rounds) {
+        long found = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int slot = 0; slot < SIZE; slot++) {
+                ItemStack clickedItem = clicked[slot];
+                SolidityItem item = SolUtils.find(items, (v) -> v.getItem().equals(clickedItem));
+                if (item != null) found += item.getPosition();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Resolves a click on every slot through the GUI, the way its click handler does now.
+     */
+    private static long lookup(SolidityGui gui, int rounds) {
+        long found = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int slot = 0; slot < SIZE; slot++) {
+                SolidityItem item = gui.getItem(slot);
+                if (item != null) found += item.getPosition();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Installs a server which only provides what the GUI and the item stacks use: inventories, a logger and an item
+     * factory handing out empty metas, like the metas of plain stacks on a running server.
+     */
+    private static void installServer() {
+        ItemFactory itemFactory = stub(ItemFactory.class, (proxy, method, args) ->
+                method.getName().equals("getItemMeta") ? stub(Damageable.class, null) : null);
+        Logger logger = Logger.getLogger(SolidityGuiClickBenchmark.class.getName());
+        Bukkit.setServer(stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItemFactory":
+                    return itemFactory;
+                case "getLogger":
+                    return logger;
+                case "createInventory":
+                    return stub(Inventory.class, null);
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Creates an implementation of an interface whose methods return the result of a handler, or the default value
+     * of their return type if there's no handler or it returned null.
+     */
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + " stub";
+                }
+            }
+
+            Object result = handler != null ? handler.invoke(proxy, method, args) : null;
+            Class<?> returnType = method.getReturnType();
+            if (result == null && returnType.isPrimitive() && returnType != void.class) {
+                return Array.get(Array.newInstance(returnType, 1), 0);
+            }
+            return result;
+        });
+        return type.cast(stub);
+    }
+}